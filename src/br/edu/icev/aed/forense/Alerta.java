@@ -1,5 +1,7 @@
 package br.edu.icev.aed.forense;
 
+import java.util.Objects;
+
 /**
  * Classe que representa um alerta de segurança extraído dos logs.
  * Contém todas as informações de uma linha do arquivo de log.
@@ -97,29 +99,41 @@ public class Alerta {
     public String toString() {
         return String.format("Alerta{timestamp=%d, userId='%s', sessionId='%s', actionType='%s', " +
                            "targetResource='%s', severityLevel=%d, bytesTransferred=%d}",
-                           timestamp, userId, sessionId, actionType, targetResource, 
-                           severityLevel, bytesTransferred);
+                           getTimestamp(), getUserId(), getSessionId(), getActionType(), getTargetResource(), 
+                           getSeverityLevel(), getBytesTransferred());
     }
     
+    /**
+     * Compara pelos getters, de modo que um {@link AlertaView} é igual ao
+     * alerta com os mesmos dados.
+     */
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
+        if (!(obj instanceof Alerta)) return false;
         
         Alerta alerta = (Alerta) obj;
-        return timestamp == alerta.timestamp &&
-               severityLevel == alerta.severityLevel &&
-               bytesTransferred == alerta.bytesTransferred &&
-               userId.equals(alerta.userId) &&
-               sessionId.equals(alerta.sessionId) &&
-               actionType.equals(alerta.actionType) &&
-               targetResource.equals(alerta.targetResource);
+        return getTimestamp() == alerta.getTimestamp() &&
+               getSeverityLevel() == alerta.getSeverityLevel() &&
+               getBytesTransferred() == alerta.getBytesTransferred() &&
+               Objects.equals(getUserId(), alerta.getUserId()) &&
+               Objects.equals(getSessionId(), alerta.getSessionId()) &&
+               Objects.equals(getActionType(), alerta.getActionType()) &&
+               Objects.equals(getTargetResource(), alerta.getTargetResource());
     }
     
+    /**
+     * Combina os campos em sequência (multiplicando por 31), para que campos
+     * iguais ou trocados entre si não se anulem.
+     */
     @Override
     public int hashCode() {
-        return Long.hashCode(timestamp) ^ userId.hashCode() ^ sessionId.hashCode() ^
-               actionType.hashCode() ^ targetResource.hashCode() ^ 
-               Integer.hashCode(severityLevel) ^ Long.hashCode(bytesTransferred);
+        int h = Long.hashCode(getTimestamp());
+        h = 31 * h + Objects.hashCode(getUserId());
+        h = 31 * h + Objects.hashCode(getSessionId());
+        h = 31 * h + Objects.hashCode(getActionType());
+        h = 31 * h + Objects.hashCode(getTargetResource());
+        h = 31 * h + getSeverityLevel();
+        return 31 * h + Long.hashCode(getBytesTransferred());
     }
 }
@@ -0,0 +1,88 @@
+package br.edu.icev.aed.forense;
+
+/**
+ * Alerta emitido por {@link ExfiltrationDetector} quando as transferências de
+ * um usuário dentro da janela de tempo passam do limite de bytes.
+ */
+public final class AlertaExfiltracao {
+
+    private final String userId;
+    private final long timestamp;
+    private final long inicioJanela;
+    private final long bytesNaJanela;
+    private final int transferencias;
+    private final long maiorTransferencia;
+
+    /**
+     * @param userId Usuário que passou do limite
+     * @param timestamp Timestamp da transferência que ultrapassou o limite
+     * @param inicioJanela Timestamp da transferência mais antiga ainda na janela
+     * @param bytesNaJanela Total de bytes transferidos na janela
+     * @param transferencias Quantidade de transferências na janela
+     * @param maiorTransferencia Maior transferência individual na janela
+     */
+    public AlertaExfiltracao(String userId, long timestamp, long inicioJanela, long bytesNaJanela,
+                             int transferencias, long maiorTransferencia) {
+        this.userId = userId;
+        this.timestamp = timestamp;
+        this.inicioJanela = inicioJanela;
+        this.bytesNaJanela = bytesNaJanela;
+        this.transferencias = transferencias;
+        this.maiorTransferencia = maiorTransferencia;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getInicioJanela() {
+        return inicioJanela;
+    }
+
+    public long getBytesNaJanela() {
+        return bytesNaJanela;
+    }
+
+    public int getTransferencias() {
+        return transferencias;
+    }
+
+    public long getMaiorTransferencia() {
+        return maiorTransferencia;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AlertaExfiltracao)) {
+            return false;
+        }
+        AlertaExfiltracao outro = (AlertaExfiltracao) o;
+        return timestamp == outro.timestamp && inicioJanela == outro.inicioJanela
+                && bytesNaJanela == outro.bytesNaJanela && transferencias == outro.transferencias
+                && maiorTransferencia == outro.maiorTransferencia && userId.equals(outro.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = userId.hashCode();
+        h = 31 * h + Long.hashCode(timestamp);
+        h = 31 * h + Long.hashCode(inicioJanela);
+        h = 31 * h + Long.hashCode(bytesNaJanela);
+        h = 31 * h + transferencias;
+        return 31 * h + Long.hashCode(maiorTransferencia);
+    }
+
+    @Override
+    public String toString() {
+        return "AlertaExfiltracao{" + userId + ", " + bytesNaJanela + " bytes em " + transferencias
+                + " transferências de " + inicioJanela + " a " + timestamp
+                + ", maior " + maiorTransferencia + "}";
+    }
+}
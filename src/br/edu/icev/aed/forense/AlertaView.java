@@ -0,0 +1,120 @@
+package br.edu.icev.aed.forense;
+
+/**
+ * {@link Alerta} somente leitura que lê os dados de uma linha de uma
+ * {@link LogTable}, sem copiá-los.
+ *
+ * Os getters consultam as colunas da tabela a cada chamada, e os textos vêm
+ * dos dicionários (as mesmas Strings para todas as linhas). Em
+ * {@link LogTable#paraCada} uma única visão é reposicionada a cada linha,
+ * como um cursor; quem quiser guardar o evento deve usar
+ * {@link #materializar()}. Os setters lançam
+ * {@link UnsupportedOperationException}.
+ *
+ * Igualdade e hash são os de {@link Alerta}: uma visão é igual a um alerta
+ * com os mesmos dados.
+ */
+public final class AlertaView extends Alerta {
+
+    private final LogTable tabela;
+    private int linha;
+
+    AlertaView(LogTable tabela, int linha) {
+        super(0, null, null, null, null, 0, 0);
+        this.tabela = tabela;
+        this.linha = linha;
+    }
+
+    /** Reposiciona a visão (uso do cursor de {@link LogTable#paraCada}). */
+    void posicionar(int linha) {
+        this.linha = linha;
+    }
+
+    /**
+     * Número da linha na tabela (0, 1, 2, ... na ordem do arquivo).
+     */
+    public int linha() {
+        return linha;
+    }
+
+    /**
+     * Cópia independente da tabela e da posição da visão.
+     */
+    public Alerta materializar() {
+        return tabela.alerta(linha);
+    }
+
+    @Override
+    public long getTimestamp() {
+        return tabela.timestamp(linha);
+    }
+
+    @Override
+    public String getUserId() {
+        return tabela.dicionarioUsuarios().valor(tabela.usuario(linha));
+    }
+
+    @Override
+    public String getSessionId() {
+        return tabela.dicionarioSessoes().valor(tabela.sessao(linha));
+    }
+
+    @Override
+    public String getActionType() {
+        return tabela.dicionarioAcoes().valor(tabela.acao(linha));
+    }
+
+    @Override
+    public String getTargetResource() {
+        return tabela.dicionarioRecursos().valor(tabela.recurso(linha));
+    }
+
+    @Override
+    public int getSeverityLevel() {
+        return tabela.severidade(linha);
+    }
+
+    @Override
+    public long getBytesTransferred() {
+        return tabela.bytesTransferidos(linha);
+    }
+
+    @Override
+    public void setTimestamp(long timestamp) {
+        throw somenteLeitura();
+    }
+
+    @Override
+    public void setUserId(String userId) {
+        throw somenteLeitura();
+    }
+
+    @Override
+    public void setSessionId(String sessionId) {
+        throw somenteLeitura();
+    }
+
+    @Override
+    public void setActionType(String actionType) {
+        throw somenteLeitura();
+    }
+
+    @Override
+    public void setTargetResource(String targetResource) {
+        throw somenteLeitura();
+    }
+
+    @Override
+    public void setSeverityLevel(int severityLevel) {
+        throw somenteLeitura();
+    }
+
+    @Override
+    public void setBytesTransferred(long bytesTransferred) {
+        throw somenteLeitura();
+    }
+
+    private static UnsupportedOperationException somenteLeitura() {
+        return new UnsupportedOperationException("AlertaView é somente leitura; use materializar()");
+    }
+}
@@ -0,0 +1,158 @@
+package br.edu.icev.aed.forense;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Versão assíncrona dos 5 desafios de {@link AnaliseForenseAvancada}: cada
+ * método retorna um {@link CompletableFuture} em vez de bloquear quem chama.
+ *
+ * As chamadas rodam em threads virtuais quando a JVM as oferece (Java 21 ou
+ * superior), detectadas por reflexão, e um semáforo limita quantas executam
+ * ao mesmo tempo, já que leitura e análise do arquivo usam CPU; as demais
+ * esperam sem ocupar threads de plataforma. Em versões anteriores, um pool
+ * fixo de threads de plataforma daemon, do tamanho do limite, faz o mesmo
+ * papel: as chamadas excedentes ficam na fila do pool, sem thread parada.
+ *
+ * Chamadas feitas depois de {@link #close()} retornam um futuro já
+ * completado com {@link RejectedExecutionException}.
+ *
+ * Os resultados vêm de uma {@link AnaliseForenseOtimizada}: pedidos
+ * simultâneos sobre o mesmo arquivo compartilham uma única leitura em
+ * andamento, e as seguintes usam o modelo em cache. Erros de leitura
+ * completam o futuro com a {@link IOException}.
+ *
+ * A classe é thread-safe. {@link #close()} encerra o executor.
+ */
+public class AnaliseForenseAssincrona implements AutoCloseable {
+
+    private final AnaliseForenseOtimizada analise;
+    private final ExecutorService executor;
+    /** Limite de execuções simultâneas com threads virtuais; null com o pool fixo. */
+    private final Semaphore execucoes;
+
+    /**
+     * Usa o cache compartilhado do processo e limita as execuções
+     * simultâneas à quantidade de processadores.
+     */
+    public AnaliseForenseAssincrona() {
+        this(new AnaliseForenseOtimizada(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param orcamentoCacheBytes Memória máxima ocupada pelos arquivos em cache; 0 desativa o cache
+     * @param maxExecucoes Quantidade máxima de análises executando ao mesmo tempo
+     */
+    public AnaliseForenseAssincrona(long orcamentoCacheBytes, int maxExecucoes) {
+        this(new AnaliseForenseOtimizada(orcamentoCacheBytes), maxExecucoes);
+    }
+
+    private AnaliseForenseAssincrona(AnaliseForenseOtimizada analise, int maxExecucoes) {
+        if (maxExecucoes <= 0) {
+            throw new IllegalArgumentException("maxExecucoes deve ser positivo: " + maxExecucoes);
+        }
+        this.analise = analise;
+        ExecutorService virtuais = executorVirtual();
+        if (virtuais != null) {
+            this.executor = virtuais;
+            this.execucoes = new Semaphore(maxExecucoes);
+        } else {
+            this.executor = poolFixo(maxExecucoes);
+            this.execucoes = null;
+        }
+    }
+
+    public CompletableFuture<Set<String>> encontrarSessoesInvalidas(String caminhoArquivo) {
+        return executar(() -> analise.encontrarSessoesInvalidas(caminhoArquivo));
+    }
+
+    public CompletableFuture<List<String>> reconstruirLinhaTempo(String caminhoArquivo, String sessionId) {
+        return executar(() -> analise.reconstruirLinhaTempo(caminhoArquivo, sessionId));
+    }
+
+    public CompletableFuture<List<Alerta>> priorizarAlertas(String caminhoArquivo, int n) {
+        return executar(() -> analise.priorizarAlertas(caminhoArquivo, n));
+    }
+
+    public CompletableFuture<Map<Long, Long>> encontrarPicosTransferencia(String caminhoArquivo) {
+        return executar(() -> analise.encontrarPicosTransferencia(caminhoArquivo));
+    }
+
+    public CompletableFuture<Optional<List<String>>> rastrearContaminacao(String caminhoArquivo,
+                                                                         String recursoInicial,
+                                                                         String recursoAlvo) {
+        return executar(() -> analise.rastrearContaminacao(caminhoArquivo, recursoInicial, recursoAlvo));
+    }
+
+    /**
+     * Para de aceitar novas chamadas; as já iniciadas terminam normalmente.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Tarefa<T> {
+        T executar() throws IOException;
+    }
+
+    private <T> CompletableFuture<T> executar(Tarefa<T> tarefa) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (execucoes != null) {
+                    try {
+                        execucoes.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        futuro.completeExceptionally(e);
+                        return;
+                    }
+                }
+                try {
+                    futuro.complete(tarefa.executar());
+                } catch (Throwable e) {
+                    futuro.completeExceptionally(e);
+                } finally {
+                    if (execucoes != null) {
+                        execucoes.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            futuro.completeExceptionally(e);
+        }
+        return futuro;
+    }
+
+    /**
+     * Executor de uma thread virtual por tarefa, ou null se a JVM não tem
+     * threads virtuais.
+     */
+    private static ExecutorService executorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Pool de {@code tamanho} threads de plataforma daemon; as tarefas
+     * excedentes esperam na fila do pool.
+     */
+    private static ExecutorService poolFixo(int tamanho) {
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newFixedThreadPool(tamanho, tarefa -> {
+            Thread thread = new Thread(tarefa, "analise-forense-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,384 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.LongLongHashMap;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Versão incremental dos 5 desafios, para logs que crescem continuamente.
+ *
+ * Os eventos são entregues um a um (ou em lotes) na ordem do log, e o estado
+ * de cada desafio é atualizado a cada evento: pilhas de LOGIN por sessão,
+ * linhas do tempo por sessão e por usuário, a seleção de alertas de
+ * {@link TopAlertEngine}, transferências ainda sem próximo maior e o grafo
+ * de recursos.
+ * As consultas respondem a qualquer momento sem reler o histórico.
+ *
+ * Os textos são codificados em {@link StringDictionary}, então o estado
+ * guarda apenas inteiros por evento. A classe é thread-safe; produtores e
+ * consultas são serializados pelo monitor da instância.
+ */
+public class AnaliseForenseIncremental {
+
+    /** Capacidade padrão de {@link #priorizarAlertas(int)}. */
+    public static final int MAX_ALERTAS_PADRAO = 10_000;
+
+    private static final int LOGIN = 0;
+    private static final int LOGOUT = 1;
+    private static final int SEM_RECURSO = -1;
+
+    private final int maxAlertas;
+
+    private final StringDictionary usuarios = new StringDictionary();
+    private final StringDictionary sessoes = new StringDictionary();
+    private final StringDictionary acoes = new StringDictionary();
+    private final StringDictionary recursos = new StringDictionary();
+    private final StringDictionary usuariosSemCaixa = new StringDictionary();
+    private int[] usuarioSemCaixa = new int[16];
+
+    private long eventos;
+
+    // Desafio 1
+    private int[] loginsAbertos = new int[16];
+    private final Set<String> sessoesInvalidas = new LinkedHashSet<>();
+
+    // Desafio 2
+    private int[][] acoesPorSessao = new int[16][];
+    private int[] totalPorSessao = new int[16];
+    private int usuariosMapeados;
+    private int[][] acoesPorUsuario = new int[16][];
+    private int[] totalPorUsuario = new int[16];
+
+    // Desafio 3: seleção sobre chaves primitivas. Os dados de cada evento que
+    // entrou na seleção ficam em vetores paralelos, localizados pela sequência,
+    // e os que já saíram são descartados quando os vetores passam do limite.
+    private final TopAlertEngine selecao;
+    private final long limiteCandidatos;
+    private final LongLongHashMap candidatoPorSequencia = new LongLongHashMap();
+    private int[] codigosCandidatos = new int[5 * 16];
+    private long[] timestampsCandidatos = new long[16];
+    private long[] bytesCandidatos = new long[16];
+    private int candidatos;
+
+    // Desafio 4: pilha monotônica de transferências ainda sem próximo maior
+    private long[] pendentesTimestamp = new long[16];
+    private long[] pendentesBytes = new long[16];
+    private int pendentes;
+    private final LongLongMap picos = new LongLongMap();
+
+    // Desafio 5
+    private int[] ultimoRecursoDaSessao = new int[16];
+    private int[][] adjacencia = new int[16][];
+    private int[] graus = new int[16];
+    private final LongLongHashMap arestas = new LongLongHashMap();
+
+    public AnaliseForenseIncremental() {
+        this(MAX_ALERTAS_PADRAO);
+    }
+
+    /**
+     * @param maxAlertas Maior N aceito por {@link #priorizarAlertas(int)}
+     */
+    public AnaliseForenseIncremental(int maxAlertas) {
+        if (maxAlertas <= 0) {
+            throw new IllegalArgumentException("maxAlertas deve ser positivo: " + maxAlertas);
+        }
+        this.maxAlertas = maxAlertas;
+        this.selecao = new TopAlertEngine(maxAlertas);
+        this.limiteCandidatos = Math.max(1024, 2L * maxAlertas);
+        acoes.codificar("LOGIN");
+        acoes.codificar("LOGOUT");
+        Arrays.fill(ultimoRecursoDaSessao, SEM_RECURSO);
+    }
+
+    /**
+     * Registra um evento, na ordem em que aparece no log.
+     */
+    public synchronized void registrar(long timestamp, String userId, String sessionId, String actionType,
+                                       String targetResource, int severityLevel, long bytesTransferred) {
+        registrarCodificado(timestamp, usuarios.codificar(userId), sessoes.codificar(sessionId),
+                acoes.codificar(actionType), recursos.codificar(targetResource), severityLevel, bytesTransferred);
+    }
+
+    public void registrar(Alerta evento) {
+        registrar(evento.getTimestamp(), evento.getUserId(), evento.getSessionId(), evento.getActionType(),
+                evento.getTargetResource(), evento.getSeverityLevel(), evento.getBytesTransferred());
+    }
+
+    /**
+     * Registra um lote de eventos de forma atômica em relação às consultas.
+     */
+    public synchronized void registrarTodos(Collection<? extends Alerta> lote) {
+        for (Alerta evento : lote) {
+            registrar(evento);
+        }
+    }
+
+    /**
+     * Registra todos os eventos restantes de um leitor, sem decodificar Strings.
+     *
+     * @return Quantidade de eventos registrados
+     */
+    synchronized long registrarTodos(LogReader leitor) throws IOException {
+        long lidos = 0;
+        while (leitor.proximo()) {
+            registrarCodificado(leitor.timestamp(),
+                    leitor.codificar(LogReader.USER_ID, usuarios),
+                    leitor.codificar(LogReader.SESSION_ID, sessoes),
+                    leitor.codificar(LogReader.ACTION_TYPE, acoes),
+                    leitor.codificar(LogReader.TARGET_RESOURCE, recursos),
+                    leitor.severidade(), leitor.bytesTransferidos());
+            lidos++;
+        }
+        return lidos;
+    }
+
+    public synchronized long eventos() {
+        return eventos;
+    }
+
+    public synchronized Set<String> encontrarSessoesInvalidas() {
+        return new HashSet<>(sessoesInvalidas);
+    }
+
+    /**
+     * Linha do tempo da sessão; se não existir uma sessão com esse id, o
+     * parâmetro é interpretado como usuário (sem diferenciar maiúsculas).
+     */
+    public synchronized List<String> reconstruirLinhaTempo(String sessionId) {
+        List<String> linha = new ArrayList<>();
+        if (sessionId == null) {
+            return linha;
+        }
+        int sessao = sessoes.codigo(sessionId);
+        if (sessao >= 0) {
+            adicionarAcoes(linha, acoesPorSessao[sessao], totalPorSessao[sessao]);
+            return linha;
+        }
+        int usuario = usuariosSemCaixa.codigo(sessionId.toLowerCase(Locale.ROOT));
+        if (usuario >= 0) {
+            adicionarAcoes(linha, acoesPorUsuario[usuario], totalPorUsuario[usuario]);
+        }
+        return linha;
+    }
+
+    /**
+     * Os N alertas de maior prioridade vistos até agora (maior severidade,
+     * depois mais antigo, depois mais bytes).
+     *
+     * @throws IllegalArgumentException Se n for maior que a capacidade configurada
+     */
+    public synchronized List<Alerta> priorizarAlertas(int n) {
+        if (n > maxAlertas) {
+            throw new IllegalArgumentException("n maior que a capacidade de alertas (" + maxAlertas + ")");
+        }
+        long[] selecionadas = selecao.sequencias();
+        List<Alerta> resultado = new ArrayList<>();
+        for (int i = 0; i < selecionadas.length && resultado.size() < n; i++) {
+            int c = (int) candidatoPorSequencia.obter(selecionadas[i], -1);
+            resultado.add(new Alerta(timestampsCandidatos[c], usuarios.valor(codigosCandidatos[5 * c]),
+                    sessoes.valor(codigosCandidatos[5 * c + 1]), acoes.valor(codigosCandidatos[5 * c + 2]),
+                    recursos.valor(codigosCandidatos[5 * c + 3]), codigosCandidatos[5 * c + 4],
+                    bytesCandidatos[c]));
+        }
+        return resultado;
+    }
+
+    public synchronized LongLongMap encontrarPicosTransferencia() {
+        return picos.copia();
+    }
+
+    /**
+     * BFS sobre o grafo de transições entre recursos acumulado até agora. Os
+     * recursos são procurados como em {@link AnaliseForenseOtimizada}: a
+     * grafia exata ou, se não houver, a primeira vista que difere só em
+     * maiúsculas e minúsculas.
+     */
+    public synchronized Optional<List<String>> rastrearContaminacao(String recursoInicial, String recursoAlvo) {
+        int de = codigoRecurso(recursoInicial);
+        int para = codigoRecurso(recursoAlvo);
+        if (de < 0 || para < 0) {
+            return Optional.empty();
+        }
+        int[] pai = new int[recursos.tamanho()];
+        Arrays.fill(pai, SEM_RECURSO);
+        pai[de] = de;
+        int[] fila = new int[recursos.tamanho()];
+        int inicio = 0;
+        int fim = 0;
+        fila[fim++] = de;
+        while (inicio < fim && pai[para] == SEM_RECURSO) {
+            int atual = fila[inicio++];
+            for (int i = 0; i < graus[atual]; i++) {
+                int vizinho = adjacencia[atual][i];
+                if (pai[vizinho] == SEM_RECURSO) {
+                    pai[vizinho] = atual;
+                    fila[fim++] = vizinho;
+                }
+            }
+        }
+        if (pai[para] == SEM_RECURSO) {
+            return Optional.empty();
+        }
+        LinkedList<String> caminho = new LinkedList<>();
+        for (int r = para; ; r = pai[r]) {
+            caminho.addFirst(recursos.valor(r));
+            if (r == de) {
+                break;
+            }
+        }
+        return Optional.of(new ArrayList<>(caminho));
+    }
+
+    private int codigoRecurso(String nome) {
+        if (nome == null) {
+            return SEM_RECURSO;
+        }
+        int exato = recursos.codigo(nome);
+        if (exato >= 0) {
+            return exato;
+        }
+        for (int r = 0; r < recursos.tamanho(); r++) {
+            if (recursos.valor(r).equalsIgnoreCase(nome)) {
+                return r;
+            }
+        }
+        return SEM_RECURSO;
+    }
+
+    private void registrarCodificado(long timestamp, int usuario, int sessao, int acao, int recurso,
+                                     int severidade, long bytes) {
+        long sequencia = eventos++;
+        garantirCapacidade();
+
+        if (acao == LOGIN) {
+            if (loginsAbertos[sessao]++ > 0) {
+                sessoesInvalidas.add(sessoes.valor(sessao));
+            }
+        } else if (acao == LOGOUT) {
+            if (loginsAbertos[sessao] == 0) {
+                sessoesInvalidas.add(sessoes.valor(sessao));
+            } else {
+                loginsAbertos[sessao]--;
+            }
+        }
+
+        acoesPorSessao[sessao] = anexar(acoesPorSessao[sessao], totalPorSessao[sessao]++, acao);
+        int semCaixa = usuarioSemCaixa[usuario];
+        acoesPorUsuario[semCaixa] = anexar(acoesPorUsuario[semCaixa], totalPorUsuario[semCaixa]++, acao);
+
+        if (selecao.oferecer(severidade, timestamp, bytes, sequencia)) {
+            guardarCandidato(sequencia, usuario, sessao, acao, recurso, severidade, timestamp, bytes);
+        }
+
+        while (pendentes > 0 && pendentesBytes[pendentes - 1] < bytes) {
+            picos.colocar(pendentesTimestamp[--pendentes], timestamp);
+        }
+        if (pendentes == pendentesBytes.length) {
+            pendentesBytes = Arrays.copyOf(pendentesBytes, pendentes * 2);
+            pendentesTimestamp = Arrays.copyOf(pendentesTimestamp, pendentes * 2);
+        }
+        pendentesTimestamp[pendentes] = timestamp;
+        pendentesBytes[pendentes++] = bytes;
+
+        int anterior = ultimoRecursoDaSessao[sessao];
+        ultimoRecursoDaSessao[sessao] = recurso;
+        if (anterior != SEM_RECURSO && anterior != recurso
+                && arestas.colocarSeAusente(((long) anterior << 32) | recurso, 0)) {
+            adjacencia[anterior] = anexar(adjacencia[anterior], graus[anterior]++, recurso);
+        }
+    }
+
+    private void guardarCandidato(long sequencia, int usuario, int sessao, int acao, int recurso,
+                                  int severidade, long timestamp, long bytes) {
+        if (candidatos == timestampsCandidatos.length) {
+            int capacidade = candidatos * 2;
+            codigosCandidatos = Arrays.copyOf(codigosCandidatos, 5 * capacidade);
+            timestampsCandidatos = Arrays.copyOf(timestampsCandidatos, capacidade);
+            bytesCandidatos = Arrays.copyOf(bytesCandidatos, capacidade);
+        }
+        int c = candidatos;
+        codigosCandidatos[5 * c] = usuario;
+        codigosCandidatos[5 * c + 1] = sessao;
+        codigosCandidatos[5 * c + 2] = acao;
+        codigosCandidatos[5 * c + 3] = recurso;
+        codigosCandidatos[5 * c + 4] = severidade;
+        timestampsCandidatos[c] = timestamp;
+        bytesCandidatos[c] = bytes;
+        candidatoPorSequencia.colocar(sequencia, candidatos++);
+        if (candidatos >= limiteCandidatos) {
+            compactarCandidatos();
+        }
+    }
+
+    /** Descarta os dados dos candidatos que já saíram da seleção. */
+    private void compactarCandidatos() {
+        long[] vivas = selecao.sequencias();
+        int capacidade = Math.max(16, 2 * vivas.length);
+        int[] codigos = new int[5 * capacidade];
+        long[] timestamps = new long[capacidade];
+        long[] bytes = new long[capacidade];
+        LongLongHashMap posicoes = new LongLongHashMap(vivas.length);
+        for (int i = 0; i < vivas.length; i++) {
+            int c = (int) candidatoPorSequencia.obter(vivas[i], -1);
+            System.arraycopy(codigosCandidatos, 5 * c, codigos, 5 * i, 5);
+            timestamps[i] = timestampsCandidatos[c];
+            bytes[i] = bytesCandidatos[c];
+            posicoes.colocar(vivas[i], i);
+        }
+        candidatoPorSequencia.limpar();
+        posicoes.paraCada(candidatoPorSequencia::colocar);
+        codigosCandidatos = codigos;
+        timestampsCandidatos = timestamps;
+        bytesCandidatos = bytes;
+        candidatos = vivas.length;
+    }
+
+    /** Cresce os vetores indexados por código quando os dicionários crescem. */
+    private void garantirCapacidade() {
+        if (sessoes.tamanho() > loginsAbertos.length) {
+            int capacidade = Math.max(sessoes.tamanho(), loginsAbertos.length * 2);
+            loginsAbertos = Arrays.copyOf(loginsAbertos, capacidade);
+            acoesPorSessao = Arrays.copyOf(acoesPorSessao, capacidade);
+            totalPorSessao = Arrays.copyOf(totalPorSessao, capacidade);
+            int anterior = ultimoRecursoDaSessao.length;
+            ultimoRecursoDaSessao = Arrays.copyOf(ultimoRecursoDaSessao, capacidade);
+            Arrays.fill(ultimoRecursoDaSessao, anterior, capacidade, SEM_RECURSO);
+        }
+        if (usuarios.tamanho() > usuarioSemCaixa.length) {
+            usuarioSemCaixa = Arrays.copyOf(usuarioSemCaixa, Math.max(usuarios.tamanho(), usuarioSemCaixa.length * 2));
+        }
+        while (usuariosMapeados < usuarios.tamanho()) {
+            usuarioSemCaixa[usuariosMapeados] =
+                    usuariosSemCaixa.codificar(usuarios.valor(usuariosMapeados).toLowerCase(Locale.ROOT));
+            usuariosMapeados++;
+        }
+        if (usuariosSemCaixa.tamanho() > acoesPorUsuario.length) {
+            int capacidade = Math.max(usuariosSemCaixa.tamanho(), acoesPorUsuario.length * 2);
+            acoesPorUsuario = Arrays.copyOf(acoesPorUsuario, capacidade);
+            totalPorUsuario = Arrays.copyOf(totalPorUsuario, capacidade);
+        }
+        if (recursos.tamanho() > adjacencia.length) {
+            int capacidade = Math.max(recursos.tamanho(), adjacencia.length * 2);
+            adjacencia = Arrays.copyOf(adjacencia, capacidade);
+            graus = Arrays.copyOf(graus, capacidade);
+        }
+    }
+
+    private void adicionarAcoes(List<String> destino, int[] codigos, int total) {
+        for (int i = 0; i < total; i++) {
+            destino.add(acoes.valor(codigos[i]));
+        }
+    }
+
+    private static int[] anexar(int[] vetor, int tamanho, int valor) {
+        if (vetor == null) {
+            vetor = new int[4];
+        } else if (tamanho == vetor.length) {
+            vetor = Arrays.copyOf(vetor, tamanho * 2);
+        }
+        vetor[tamanho] = valor;
+        return vetor;
+    }
+}
@@ -0,0 +1,284 @@
+package br.edu.icev.aed.forense;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Implementação de referência de {@link AnaliseForenseAvancada}.
+ *
+ * O arquivo é lido uma única vez para um {@link ModeloForense}, do qual os
+ * 5 desafios são respondidos. Os modelos ficam em um {@link ModeloCache}:
+ * chamadas sobre o mesmo arquivo (mesmo caminho, tamanho e data de
+ * modificação) reaproveitam o modelo já lido.
+ *
+ * A classe é thread-safe: os modelos são imutáveis e o cache é sincronizado.
+ */
+public class AnaliseForenseOtimizada implements AnaliseForenseAvancada {
+
+    private final ModeloCache cache;
+
+    /**
+     * Usa o cache compartilhado do processo, cujo orçamento de memória é
+     * configurado pela propriedade de sistema {@code aed.forense.cache.bytes}.
+     */
+    public AnaliseForenseOtimizada() {
+        this.cache = ModeloCache.compartilhado();
+    }
+
+    /**
+     * Usa um cache próprio desta instância.
+     *
+     * @param orcamentoCacheBytes Memória máxima ocupada pelos arquivos em cache; 0 desativa o cache
+     */
+    public AnaliseForenseOtimizada(long orcamentoCacheBytes) {
+        this.cache = new ModeloCache(orcamentoCacheBytes);
+    }
+
+    @Override
+    public Set<String> encontrarSessoesInvalidas(String caminhoArquivo) throws IOException {
+        return modelo(caminhoArquivo).sessoesInvalidas();
+    }
+
+    @Override
+    public List<String> reconstruirLinhaTempo(String caminhoArquivo, String sessionId) throws IOException {
+        return modelo(caminhoArquivo).linhaTempo(sessionId);
+    }
+
+    @Override
+    public List<Alerta> priorizarAlertas(String caminhoArquivo, int n) throws IOException {
+        return modelo(caminhoArquivo).alertasPrioritarios(n);
+    }
+
+    @Override
+    public Map<Long, Long> encontrarPicosTransferencia(String caminhoArquivo) throws IOException {
+        return modelo(caminhoArquivo).picosTransferencia();
+    }
+
+    @Override
+    public Optional<List<String>> rastrearContaminacao(String caminhoArquivo, String recursoInicial,
+                                                       String recursoAlvo) throws IOException {
+        return modelo(caminhoArquivo).caminhoMaisCurto(recursoInicial, recursoAlvo);
+    }
+
+    /**
+     * Recursos do arquivo cujo nome começa com o prefixo, sem diferenciar
+     * maiúsculas, em ordem alfabética.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param prefixo Início do caminho do recurso (por exemplo, {@code /etc/})
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public List<String> recursosComPrefixo(String caminhoArquivo, String prefixo) throws IOException {
+        return modelo(caminhoArquivo).recursosComPrefixo(prefixo);
+    }
+
+    /**
+     * Eventos sobre os recursos que casam com o padrão, na ordem do arquivo.
+     * O padrão é um nome de recurso ou um prefixo seguido de {@code *} ou
+     * {@code **}, como {@code /etc/**}; maiúsculas não são diferenciadas.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param padraoRecurso Nome ou prefixo do recurso
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public List<Alerta> eventosPorRecurso(String caminhoArquivo, String padraoRecurso) throws IOException {
+        return modelo(caminhoArquivo).eventosPorRecurso(padraoRecurso);
+    }
+
+    /**
+     * Indica se o recurso alvo pode ser contaminado a partir do inicial, sem
+     * reconstruir o caminho. Na primeira chamada sobre um arquivo é montado
+     * um índice de alcançabilidade, e as seguintes não percorrem o grafo.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param recursoInicial Recurso de origem
+     * @param recursoAlvo Recurso alvo
+     * @return true se {@link #rastrearContaminacao} encontraria um caminho
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public boolean podeContaminar(String caminhoArquivo, String recursoInicial, String recursoAlvo)
+            throws IOException {
+        return modelo(caminhoArquivo).alcanca(recursoInicial, recursoAlvo);
+    }
+
+    /**
+     * Versão em lote de {@link #rastrearContaminacao}: o caminho mais curto
+     * de cada recurso inicial a cada recurso alvo. Cada recurso inicial é
+     * resolvido por uma única busca, e as buscas rodam em paralelo sobre o
+     * mesmo grafo.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param recursosIniciais Recursos de origem
+     * @param recursosAlvo Recursos alvo
+     * @return Um resultado por par, ordenados por recurso inicial e depois por alvo
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public List<CaminhoContaminacao> rastrearContaminacaoEmLote(String caminhoArquivo,
+                                                                Collection<String> recursosIniciais,
+                                                                Collection<String> recursosAlvo) throws IOException {
+        return modelo(caminhoArquivo).caminhosEmLote(new ArrayList<>(recursosIniciais), new ArrayList<>(recursosAlvo));
+    }
+
+    /**
+     * Modo reverso da consulta em lote: para cada recurso alvo, quais dos
+     * recursos iniciais conseguem alcançá-lo.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param recursosIniciais Recursos de origem candidatos
+     * @param recursosAlvo Recursos alvo
+     * @return Para cada alvo, na ordem recebida, os recursos iniciais que o alcançam
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public Map<String, List<String>> rastrearOrigensContaminacao(String caminhoArquivo,
+                                                                 Collection<String> recursosIniciais,
+                                                                 Collection<String> recursosAlvo) throws IOException {
+        return modelo(caminhoArquivo).origensQueAlcancam(new ArrayList<>(recursosIniciais),
+                new ArrayList<>(recursosAlvo));
+    }
+
+    /**
+     * Eventos com timestamp entre {@code inicio} e {@code fim} (inclusive),
+     * na ordem do arquivo. Em arquivos ordenados por timestamp, só a faixa do
+     * intervalo é percorrida, localizada por busca binária.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param inicio Primeiro timestamp do intervalo
+     * @param fim Último timestamp do intervalo
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public List<Alerta> eventosEntre(String caminhoArquivo, long inicio, long fim) throws IOException {
+        return modelo(caminhoArquivo).eventosEntre(inicio, fim, null, null, null);
+    }
+
+    /**
+     * Eventos do intervalo filtrados por usuário, sessão e ação; filtros
+     * nulos são ignorados. O usuário não diferencia maiúsculas.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param inicio Primeiro timestamp do intervalo
+     * @param fim Último timestamp do intervalo
+     * @param userId USER_ID dos eventos, ou null
+     * @param sessionId SESSION_ID dos eventos, ou null
+     * @param actionType ACTION_TYPE dos eventos, ou null
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public List<Alerta> eventosEntre(String caminhoArquivo, long inicio, long fim,
+                                     String userId, String sessionId, String actionType) throws IOException {
+        return modelo(caminhoArquivo).eventosEntre(inicio, fim, userId, sessionId, actionType);
+    }
+
+    // Versões dos 5 desafios restritas a um intervalo de tempo (inclusive): o
+    // resultado é o mesmo de um arquivo contendo apenas os eventos do intervalo.
+
+    /**
+     * {@link #encontrarSessoesInvalidas(String)} considerando só os eventos
+     * entre {@code inicio} e {@code fim}.
+     */
+    public Set<String> encontrarSessoesInvalidas(String caminhoArquivo, long inicio, long fim) throws IOException {
+        return modelo(caminhoArquivo).janela(inicio, fim).sessoesInvalidas();
+    }
+
+    /**
+     * {@link #reconstruirLinhaTempo(String, String)} considerando só os
+     * eventos entre {@code inicio} e {@code fim}.
+     */
+    public List<String> reconstruirLinhaTempo(String caminhoArquivo, String sessionId, long inicio, long fim)
+            throws IOException {
+        return modelo(caminhoArquivo).janela(inicio, fim).linhaTempo(sessionId);
+    }
+
+    /**
+     * {@link #priorizarAlertas(String, int)} considerando só os eventos entre
+     * {@code inicio} e {@code fim}.
+     */
+    public List<Alerta> priorizarAlertas(String caminhoArquivo, int n, long inicio, long fim) throws IOException {
+        return modelo(caminhoArquivo).janela(inicio, fim).alertasPrioritarios(n);
+    }
+
+    /**
+     * {@link #encontrarPicosTransferencia(String)} considerando só os eventos
+     * entre {@code inicio} e {@code fim}.
+     */
+    public Map<Long, Long> encontrarPicosTransferencia(String caminhoArquivo, long inicio, long fim)
+            throws IOException {
+        return modelo(caminhoArquivo).janela(inicio, fim).picosTransferencia();
+    }
+
+    /**
+     * {@link #rastrearContaminacao(String, String, String)} no grafo formado
+     * só pelos eventos entre {@code inicio} e {@code fim}.
+     */
+    public Optional<List<String>> rastrearContaminacao(String caminhoArquivo, String recursoInicial,
+                                                       String recursoAlvo, long inicio, long fim)
+            throws IOException {
+        return modelo(caminhoArquivo).janela(inicio, fim).caminhoMaisCurto(recursoInicial, recursoAlvo);
+    }
+
+    /**
+     * Entrega todos os eventos do arquivo, na ordem do arquivo, por uma única
+     * {@link AlertaView} reposicionada a cada linha, sem criar objetos por
+     * evento. A visão só vale durante a chamada do consumidor; para guardar
+     * um evento use {@link AlertaView#materializar()}.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param consumidor Recebe cada evento
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public void percorrerEventos(String caminhoArquivo, Consumer<? super AlertaView> consumidor) throws IOException {
+        modelo(caminhoArquivo).tabela().paraCada(consumidor);
+    }
+
+    /**
+     * Os 5 desafios em uma única leitura do arquivo, sem passar pelo cache:
+     * adequado para respostas avulsas sobre arquivos grandes, sem montar a
+     * tabela em memória (ver {@link ForensicReport} para o que ainda cresce
+     * com o número de linhas).
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param sessionId Sessão da linha do tempo
+     * @param n Quantidade de alertas priorizados
+     * @param recursoInicial Origem do rastreamento de contaminação
+     * @param recursoAlvo Alvo do rastreamento de contaminação
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public ForensicReport gerarRelatorio(String caminhoArquivo, String sessionId, int n, String recursoInicial,
+                                         String recursoAlvo) throws IOException {
+        return ForensicReport.gerar(Paths.get(caminhoArquivo), sessionId, n, recursoInicial, recursoAlvo);
+    }
+
+    /**
+     * Eventos que passam pelo filtro, na ordem do arquivo. O filtro é
+     * avaliado coluna a coluna sobre a tabela em cache, e só as linhas
+     * selecionadas viram {@link Alerta}.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param filtro Filtro montado com {@link LogFilter}
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public List<Alerta> filtrarEventos(String caminhoArquivo, LogFilter filtro) throws IOException {
+        LogTable tabela = modelo(caminhoArquivo).tabela();
+        int[] linhas = filtro.compilar(tabela).linhas();
+        List<Alerta> eventos = new ArrayList<>(linhas.length);
+        for (int linha : linhas) {
+            eventos.add(tabela.alerta(linha));
+        }
+        return eventos;
+    }
+
+    /**
+     * Quantidade de eventos que passam pelo filtro, sem criar objetos por evento.
+     *
+     * @param caminhoArquivo Caminho para o arquivo CSV de logs
+     * @param filtro Filtro montado com {@link LogFilter}
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    public int contarEventos(String caminhoArquivo, LogFilter filtro) throws IOException {
+        return filtro.compilar(modelo(caminhoArquivo).tabela()).contar();
+    }
+
+    private ModeloForense modelo(String caminhoArquivo) throws IOException {
+        return cache.obter(Paths.get(caminhoArquivo));
+    }
+}
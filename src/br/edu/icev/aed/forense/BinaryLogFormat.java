@@ -0,0 +1,376 @@
+package br.edu.icev.aed.forense;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Formato binário de um arquivo de logs já convertido para {@link LogTable}.
+ *
+ * Um log analisado muitas vezes pode ser convertido uma única vez com
+ * {@link #converter(Path, Path)}; depois disso {@link LogTable#carregar(Path)}
+ * o lê mapeando o arquivo e copiando cada coluna em bloco, sem interpretar
+ * texto. Apenas os dicionários são reconstruídos.
+ *
+ * Layout (little-endian, seções alinhadas em 8 bytes):
+ * <pre>
+ * cabeçalho   "AEDLOG\0\1", versão (int), reservado (int)
+ * colunas     timestamps (long[]), bytes (long[]), usuários, sessões,
+ *             ações e recursos (int[] com códigos), severidades (byte[])
+ * dicionários usuários, sessões, ações e recursos; cada um com
+ *             quantidade (int), deslocamentos (int[quantidade + 1]) e bytes
+ * rodapé      linhas (long), início de cada uma das 11 seções (long),
+ *             "AEDLOGFT"
+ * </pre>
+ */
+public final class BinaryLogFormat {
+
+    private static final byte[] MAGICO = {'A', 'E', 'D', 'L', 'O', 'G', 0, 1};
+    private static final byte[] MAGICO_RODAPE = {'A', 'E', 'D', 'L', 'O', 'G', 'F', 'T'};
+    private static final int VERSAO = 1;
+
+    private static final int TAMANHO_CABECALHO = 16;
+    private static final int SECOES = 11;
+    private static final int TAMANHO_RODAPE = 8 + 8 * SECOES + 8;
+
+    private static final int BUFFER_ESCRITA = 1 << 20;
+    /** Maior trecho mapeado de uma vez ao ler uma coluna. */
+    private static final int JANELA_LEITURA = 1 << 30;
+
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * Converte um CSV de logs para o formato binário.
+     *
+     * @param csv Caminho do CSV de logs
+     * @param destino Arquivo binário a ser criado (ou substituído)
+     * @throws IOException Se houver erro de leitura, escrita ou linha malformada
+     */
+    public static void converter(Path csv, Path destino) throws IOException {
+        escrever(LogTable.carregar(csv), destino);
+    }
+
+    /**
+     * Grava a tabela no formato binário.
+     *
+     * @param tabela Tabela a ser gravada
+     * @param destino Arquivo binário a ser criado (ou substituído)
+     * @throws IOException Se houver erro de escrita
+     */
+    public static void escrever(LogTable tabela, Path destino) throws IOException {
+        int linhas = tabela.linhas();
+        long[] secoes = new long[SECOES];
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Saida saida = new Saida(canal);
+            saida.buffer.put(MAGICO).putInt(VERSAO).putInt(0);
+
+            secoes[0] = saida.alinhar();
+            saida.longs(tabela.colunaTimestamps(), linhas);
+            secoes[1] = saida.alinhar();
+            saida.longs(tabela.colunaBytes(), linhas);
+            secoes[2] = saida.alinhar();
+            saida.ints(tabela.colunaUsuarios(), linhas);
+            secoes[3] = saida.alinhar();
+            saida.ints(tabela.colunaSessoes(), linhas);
+            secoes[4] = saida.alinhar();
+            saida.ints(tabela.colunaAcoes(), linhas);
+            secoes[5] = saida.alinhar();
+            saida.ints(tabela.colunaRecursos(), linhas);
+            secoes[6] = saida.alinhar();
+            saida.bytes(tabela.colunaSeveridades(), linhas);
+            secoes[7] = saida.alinhar();
+            saida.dicionario(tabela.dicionarioUsuarios());
+            secoes[8] = saida.alinhar();
+            saida.dicionario(tabela.dicionarioSessoes());
+            secoes[9] = saida.alinhar();
+            saida.dicionario(tabela.dicionarioAcoes());
+            secoes[10] = saida.alinhar();
+            saida.dicionario(tabela.dicionarioRecursos());
+
+            saida.alinhar();
+            saida.reservar(TAMANHO_RODAPE);
+            saida.buffer.putLong(linhas);
+            for (long inicio : secoes) {
+                saida.buffer.putLong(inicio);
+            }
+            saida.buffer.put(MAGICO_RODAPE);
+            saida.descarregar();
+        }
+    }
+
+    /**
+     * Indica se o arquivo começa com a assinatura do formato binário.
+     */
+    public static boolean ehBinario(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() < TAMANHO_CABECALHO + TAMANHO_RODAPE) {
+                return false;
+            }
+            ByteBuffer inicio = ByteBuffer.allocate(MAGICO.length);
+            while (inicio.hasRemaining() && canal.read(inicio, inicio.position()) > 0) {
+                // lê a assinatura inteira
+            }
+            return Arrays.equals(inicio.array(), MAGICO);
+        }
+    }
+
+    /**
+     * Lê um arquivo gravado por {@link #escrever(LogTable, Path)}.
+     *
+     * @param arquivo Caminho do arquivo binário
+     * @return Tabela idêntica à que foi gravada
+     * @throws IOException Se houver erro de leitura ou o arquivo estiver corrompido
+     */
+    public static LogTable ler(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            if (tamanho < TAMANHO_CABECALHO + TAMANHO_RODAPE) {
+                throw invalido(arquivo, "tamanho insuficiente");
+            }
+            ByteBuffer cabecalho = mapear(canal, 0, TAMANHO_CABECALHO);
+            byte[] magico = new byte[MAGICO.length];
+            cabecalho.get(magico);
+            if (!Arrays.equals(magico, MAGICO)) {
+                throw invalido(arquivo, "assinatura ausente");
+            }
+            int versao = cabecalho.getInt();
+            if (versao != VERSAO) {
+                throw invalido(arquivo, "versão " + versao + " não suportada");
+            }
+
+            ByteBuffer rodape = mapear(canal, tamanho - TAMANHO_RODAPE, TAMANHO_RODAPE);
+            long linhasGravadas = rodape.getLong();
+            long[] secoes = new long[SECOES];
+            for (int i = 0; i < SECOES; i++) {
+                secoes[i] = rodape.getLong();
+            }
+            rodape.get(magico);
+            if (!Arrays.equals(magico, MAGICO_RODAPE) || linhasGravadas < 0 || linhasGravadas > Integer.MAX_VALUE) {
+                throw invalido(arquivo, "rodapé corrompido");
+            }
+            int linhas = (int) linhasGravadas;
+            long fimDados = tamanho - TAMANHO_RODAPE;
+            verificarSecao(arquivo, secoes[0], 8L * linhas, fimDados);
+            verificarSecao(arquivo, secoes[1], 8L * linhas, fimDados);
+            for (int i = 2; i <= 5; i++) {
+                verificarSecao(arquivo, secoes[i], 4L * linhas, fimDados);
+            }
+            verificarSecao(arquivo, secoes[6], linhas, fimDados);
+
+            long[] timestamps = new long[linhas];
+            long[] bytes = new long[linhas];
+            int[] usuarios = new int[linhas];
+            int[] sessoes = new int[linhas];
+            int[] acoes = new int[linhas];
+            int[] recursos = new int[linhas];
+            byte[] severidades = new byte[linhas];
+            lerLongs(canal, secoes[0], timestamps);
+            lerLongs(canal, secoes[1], bytes);
+            lerInts(canal, secoes[2], usuarios);
+            lerInts(canal, secoes[3], sessoes);
+            lerInts(canal, secoes[4], acoes);
+            lerInts(canal, secoes[5], recursos);
+            lerBytes(canal, secoes[6], severidades);
+
+            StringDictionary dicionarioUsuarios = lerDicionario(arquivo, canal, secoes[7], fimDados);
+            StringDictionary dicionarioSessoes = lerDicionario(arquivo, canal, secoes[8], fimDados);
+            StringDictionary dicionarioAcoes = lerDicionario(arquivo, canal, secoes[9], fimDados);
+            StringDictionary dicionarioRecursos = lerDicionario(arquivo, canal, secoes[10], fimDados);
+            verificarCodigos(arquivo, usuarios, dicionarioUsuarios);
+            verificarCodigos(arquivo, sessoes, dicionarioSessoes);
+            verificarCodigos(arquivo, acoes, dicionarioAcoes);
+            verificarCodigos(arquivo, recursos, dicionarioRecursos);
+            for (byte severidade : severidades) {
+                if (severidade < 0) {
+                    throw invalido(arquivo, "severidade fora do intervalo");
+                }
+            }
+
+            return new LogTable(linhas, timestamps, severidades, bytes, usuarios, sessoes, acoes, recursos,
+                    dicionarioUsuarios, dicionarioSessoes, dicionarioAcoes, dicionarioRecursos);
+        }
+    }
+
+    private static void lerLongs(FileChannel canal, long inicio, long[] destino) throws IOException {
+        int porJanela = JANELA_LEITURA / Long.BYTES;
+        for (int de = 0; de < destino.length; de += porJanela) {
+            int quantidade = Math.min(porJanela, destino.length - de);
+            mapear(canal, inicio + (long) de * Long.BYTES, (long) quantidade * Long.BYTES)
+                    .asLongBuffer().get(destino, de, quantidade);
+        }
+    }
+
+    private static void lerInts(FileChannel canal, long inicio, int[] destino) throws IOException {
+        int porJanela = JANELA_LEITURA / Integer.BYTES;
+        for (int de = 0; de < destino.length; de += porJanela) {
+            int quantidade = Math.min(porJanela, destino.length - de);
+            mapear(canal, inicio + (long) de * Integer.BYTES, (long) quantidade * Integer.BYTES)
+                    .asIntBuffer().get(destino, de, quantidade);
+        }
+    }
+
+    private static void lerBytes(FileChannel canal, long inicio, byte[] destino) throws IOException {
+        for (int de = 0; de < destino.length; de += JANELA_LEITURA) {
+            int quantidade = Math.min(JANELA_LEITURA, destino.length - de);
+            mapear(canal, inicio + de, quantidade).get(destino, de, quantidade);
+        }
+    }
+
+    private static StringDictionary lerDicionario(Path arquivo, FileChannel canal, long inicio, long fimDados)
+            throws IOException {
+        verificarSecao(arquivo, inicio, Integer.BYTES, fimDados);
+        int quantidade = mapear(canal, inicio, Integer.BYTES).getInt();
+        if (quantidade < 0) {
+            throw invalido(arquivo, "dicionário corrompido");
+        }
+        long inicioDeslocamentos = inicio + Integer.BYTES;
+        verificarSecao(arquivo, inicioDeslocamentos, 4L * (quantidade + 1), fimDados);
+        int[] deslocamentos = new int[quantidade + 1];
+        lerInts(canal, inicioDeslocamentos, deslocamentos);
+        // Começando em 0 e sem decrescer, todo valor fica dentro dos textos
+        if (deslocamentos[0] != 0) {
+            throw invalido(arquivo, "dicionário corrompido");
+        }
+        for (int codigo = 0; codigo < quantidade; codigo++) {
+            if (deslocamentos[codigo + 1] < deslocamentos[codigo]) {
+                throw invalido(arquivo, "dicionário corrompido");
+            }
+        }
+        long inicioTextos = inicioDeslocamentos + 4L * (quantidade + 1);
+        verificarSecao(arquivo, inicioTextos, deslocamentos[quantidade], fimDados);
+
+        StringDictionary dicionario = new StringDictionary();
+        ByteBuffer textos = mapear(canal, inicioTextos, deslocamentos[quantidade]);
+        for (int codigo = 0; codigo < quantidade; codigo++) {
+            int de = deslocamentos[codigo];
+            if (dicionario.codificar(textos, de, deslocamentos[codigo + 1] - de) != codigo) {
+                throw invalido(arquivo, "dicionário corrompido");
+            }
+        }
+        return dicionario;
+    }
+
+    private static void verificarSecao(Path arquivo, long inicio, long comprimento, long fimDados)
+            throws IOException {
+        if (inicio < TAMANHO_CABECALHO || comprimento < 0 || inicio > fimDados - comprimento) {
+            throw invalido(arquivo, "seção fora dos limites");
+        }
+    }
+
+    private static void verificarCodigos(Path arquivo, int[] coluna, StringDictionary dicionario)
+            throws IOException {
+        int limite = dicionario.tamanho();
+        for (int codigo : coluna) {
+            if (codigo < 0 || codigo >= limite) {
+                throw invalido(arquivo, "código de dicionário inexistente");
+            }
+        }
+    }
+
+    private static ByteBuffer mapear(FileChannel canal, long inicio, long comprimento) throws IOException {
+        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, inicio, comprimento);
+        mapa.order(ByteOrder.LITTLE_ENDIAN);
+        return mapa;
+    }
+
+    private static IOException invalido(Path arquivo, String motivo) {
+        return new IOException("Arquivo binário " + arquivo + " inválido: " + motivo);
+    }
+
+    /**
+     * Escrita sequencial com buffer, acompanhando a posição no arquivo.
+     */
+    private static final class Saida {
+
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_ESCRITA).order(ByteOrder.LITTLE_ENDIAN);
+        private long gravados;
+
+        Saida(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        /** Completa com zeros até um múltiplo de 8 e retorna a posição atual. */
+        long alinhar() throws IOException {
+            long posicao = gravados + buffer.position();
+            int preenchimento = (int) (-posicao & 7);
+            reservar(preenchimento);
+            for (int i = 0; i < preenchimento; i++) {
+                buffer.put((byte) 0);
+            }
+            return posicao + preenchimento;
+        }
+
+        void longs(long[] valores, int quantidade) throws IOException {
+            for (int de = 0; de < quantidade; ) {
+                reservar(Long.BYTES);
+                int lote = Math.min(quantidade - de, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(valores, de, lote);
+                buffer.position(buffer.position() + lote * Long.BYTES);
+                de += lote;
+            }
+        }
+
+        void ints(int[] valores, int quantidade) throws IOException {
+            for (int de = 0; de < quantidade; ) {
+                reservar(Integer.BYTES);
+                int lote = Math.min(quantidade - de, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(valores, de, lote);
+                buffer.position(buffer.position() + lote * Integer.BYTES);
+                de += lote;
+            }
+        }
+
+        void bytes(byte[] valores, int quantidade) throws IOException {
+            for (int de = 0; de < quantidade; ) {
+                reservar(1);
+                int lote = Math.min(quantidade - de, buffer.remaining());
+                buffer.put(valores, de, lote);
+                de += lote;
+            }
+        }
+
+        void dicionario(StringDictionary dicionario) throws IOException {
+            int quantidade = dicionario.tamanho();
+            int[] deslocamentos = new int[quantidade + 1];
+            for (int codigo = 0; codigo < quantidade; codigo++) {
+                deslocamentos[codigo + 1] = deslocamentos[codigo] + dicionario.comprimento(codigo);
+            }
+            reservar(Integer.BYTES);
+            buffer.putInt(quantidade);
+            ints(deslocamentos, deslocamentos.length);
+            // Valores maiores que o buffer são copiados em partes
+            for (int codigo = 0; codigo < quantidade; codigo++) {
+                int comprimento = dicionario.comprimento(codigo);
+                for (int de = 0; de < comprimento; ) {
+                    reservar(1);
+                    int lote = Math.min(comprimento - de, buffer.remaining());
+                    dicionario.copiarBytes(codigo, de, lote, buffer);
+                    de += lote;
+                }
+            }
+        }
+
+        /** Garante espaço para {@code quantidade} bytes, gravando o buffer se preciso. */
+        void reservar(int quantidade) throws IOException {
+            if (buffer.remaining() < quantidade) {
+                descarregar();
+            }
+        }
+
+        void descarregar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                gravados += canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
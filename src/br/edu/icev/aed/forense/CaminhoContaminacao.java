@@ -0,0 +1,71 @@
+package br.edu.icev.aed.forense;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Resultado de uma consulta de contaminação entre um recurso de origem e
+ * um recurso alvo, como os devolvidos por
+ * {@link AnaliseForenseOtimizada#rastrearContaminacaoEmLote}.
+ */
+public final class CaminhoContaminacao {
+
+    private final String origem;
+    private final String alvo;
+    private final List<String> caminho;
+
+    /**
+     * @param origem Recurso inicial
+     * @param alvo Recurso alvo
+     * @param caminho Recursos do caminho mais curto, de origem a alvo, ou null se não houver
+     */
+    public CaminhoContaminacao(String origem, String alvo, List<String> caminho) {
+        this.origem = origem;
+        this.alvo = alvo;
+        this.caminho = caminho == null ? null : Collections.unmodifiableList(caminho);
+    }
+
+    public String getOrigem() {
+        return origem;
+    }
+
+    public String getAlvo() {
+        return alvo;
+    }
+
+    public boolean isAlcancavel() {
+        return caminho != null;
+    }
+
+    /**
+     * Mesmo resultado de {@link AnaliseForenseAvancada#rastrearContaminacao}
+     * para este par.
+     */
+    public Optional<List<String>> getCaminho() {
+        return Optional.ofNullable(caminho);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CaminhoContaminacao)) {
+            return false;
+        }
+        CaminhoContaminacao outro = (CaminhoContaminacao) o;
+        return origem.equals(outro.origem) && alvo.equals(outro.alvo) && Objects.equals(caminho, outro.caminho);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(origem, alvo, caminho);
+    }
+
+    @Override
+    public String toString() {
+        return origem + " -> " + alvo + ": " + (caminho == null ? "inalcançável" : caminho);
+    }
+}
@@ -0,0 +1,154 @@
+package br.edu.icev.aed.forense;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Validação de sessões (desafio 1) alimentada por várias threads ao mesmo
+ * tempo, com as sessões inválidas informadas assim que são detectadas.
+ *
+ * O estado de cada sessão (LOGINs ainda abertos) fica em uma de várias
+ * faixas, escolhida pelo hash do SESSION_ID, cada uma com seu próprio lock.
+ * Eventos de sessões em faixas diferentes não disputam o mesmo lock, então a
+ * vazão cresce com o número de produtores. Os eventos de uma mesma sessão são
+ * aplicados um de cada vez, na ordem em que chegam à faixa: se cada sessão é
+ * entregue por um único produtor, em ordem, o resultado é o mesmo de
+ * {@link AnaliseForenseAvancada#encontrarSessoesInvalidas} sobre o arquivo.
+ *
+ * Uma sessão fica inválida em um LOGIN com outro LOGIN ainda aberto, ou em um
+ * LOGOUT sem LOGIN aberto. O {@link Ouvinte} é chamado uma vez por sessão, na
+ * thread do produtor que causou a invalidação e fora do lock da faixa.
+ */
+public final class ConcurrentSessionValidator {
+
+    /** Motivo pelo qual uma sessão se tornou inválida. */
+    public enum Motivo {
+        LOGIN_ANINHADO,
+        LOGOUT_SEM_LOGIN
+    }
+
+    /** Recebe cada sessão no momento em que ela se torna inválida. */
+    @FunctionalInterface
+    public interface Ouvinte {
+        void sessaoInvalida(String sessionId, Motivo motivo);
+    }
+
+    private static final Ouvinte SEM_OUVINTE = (sessao, motivo) -> { };
+
+    private final Faixa[] faixas;
+    private final int mascara;
+    private final Ouvinte ouvinte;
+    private final Set<String> sessoesInvalidas = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Usa quatro faixas por processador disponível e nenhum ouvinte.
+     */
+    public ConcurrentSessionValidator() {
+        this(4 * Runtime.getRuntime().availableProcessors(), SEM_OUVINTE);
+    }
+
+    /**
+     * @param faixas Quantidade mínima de faixas (arredondada para potência de 2)
+     * @param ouvinte Chamado quando uma sessão se torna inválida
+     */
+    public ConcurrentSessionValidator(int faixas, Ouvinte ouvinte) {
+        if (faixas <= 0) {
+            throw new IllegalArgumentException("faixas deve ser positivo: " + faixas);
+        }
+        int quantidade = Integer.highestOneBit(Math.min(faixas, 1 << 16) * 2 - 1);
+        this.faixas = new Faixa[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            this.faixas[i] = new Faixa();
+        }
+        this.mascara = quantidade - 1;
+        this.ouvinte = Objects.requireNonNull(ouvinte);
+    }
+
+    /**
+     * Registra um evento da sessão. Ações diferentes de LOGIN e LOGOUT são
+     * ignoradas. Pode ser chamado por várias threads.
+     *
+     * @return true se este evento tornou a sessão inválida
+     */
+    public boolean registrar(String sessionId, String actionType) {
+        boolean login = "LOGIN".equals(actionType);
+        if (!login && !"LOGOUT".equals(actionType)) {
+            return false;
+        }
+        Motivo motivo = faixa(sessionId).aplicar(sessionId, login);
+        if (motivo == null) {
+            return false;
+        }
+        sessoesInvalidas.add(sessionId);
+        ouvinte.sessaoInvalida(sessionId, motivo);
+        return true;
+    }
+
+    public boolean registrar(Alerta evento) {
+        return registrar(evento.getSessionId(), evento.getActionType());
+    }
+
+    /**
+     * Registra eventos de um mesmo produtor, na ordem da coleção.
+     */
+    public void registrarTodos(Collection<? extends Alerta> lote) {
+        for (Alerta evento : lote) {
+            registrar(evento);
+        }
+    }
+
+    /**
+     * Se a sessão já foi invalidada por algum evento registrado.
+     */
+    public boolean invalida(String sessionId) {
+        return sessoesInvalidas.contains(sessionId);
+    }
+
+    /**
+     * Cópia das sessões inválidas até o momento.
+     */
+    public Set<String> sessoesInvalidas() {
+        return new HashSet<>(sessoesInvalidas);
+    }
+
+    private Faixa faixa(String sessionId) {
+        int h = sessionId.hashCode();
+        return faixas[(h ^ (h >>> 16)) & mascara];
+    }
+
+    /**
+     * Estado das sessões de uma faixa, protegido pelo monitor da faixa.
+     */
+    private static final class Faixa {
+
+        private final Map<String, Estado> sessoes = new HashMap<>();
+
+        synchronized Motivo aplicar(String sessionId, boolean login) {
+            Estado estado = sessoes.get(sessionId);
+            if (estado == null) {
+                estado = new Estado();
+                sessoes.put(sessionId, estado);
+            }
+            Motivo motivo = null;
+            if (login) {
+                if (estado.loginsAbertos++ > 0) {
+                    motivo = Motivo.LOGIN_ANINHADO;
+                }
+            } else if (estado.loginsAbertos == 0) {
+                motivo = Motivo.LOGOUT_SEM_LOGIN;
+            } else {
+                estado.loginsAbertos--;
+            }
+            if (motivo == null || estado.invalida) {
+                return null;
+            }
+            estado.invalida = true;
+            return motivo;
+        }
+    }
+
+    private static final class Estado {
+        int loginsAbertos;
+        boolean invalida;
+    }
+}
@@ -0,0 +1,219 @@
+package br.edu.icev.aed.forense;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detecção de exfiltração por janela deslizante: soma, por usuário, os bytes
+ * das transferências ({@value #ACAO_TRANSFERENCIA}) com timestamp no
+ * intervalo {@code (t - janela, t]} e emite um {@link AlertaExfiltracao}
+ * quando a soma passa do limite.
+ *
+ * Cada usuário tem um buffer circular com as transferências da janela e a
+ * soma corrente, além de uma fila monotônica (bytes decrescentes) com a maior
+ * transferência da janela. Cada evento entra e sai uma única vez de cada
+ * estrutura, então o custo amortizado por evento é O(1), sem reagregar a
+ * janela.
+ *
+ * O alerta é emitido na transição: depois de alertar, o usuário só volta a
+ * gerar alerta quando a soma voltar a ficar dentro do limite. Eventos de um
+ * usuário fora de ordem de timestamp contam no instante do mais recente já
+ * visto. A classe é thread-safe; os eventos são serializados pelo monitor da
+ * instância.
+ */
+public final class ExfiltrationDetector {
+
+    /** ACTION_TYPE dos eventos considerados. */
+    public static final String ACAO_TRANSFERENCIA = "DATA_TRANSFER";
+
+    private final long janela;
+    private final long limiteBytes;
+
+    private final StringDictionary usuarios = new StringDictionary();
+    private final StringDictionary acoes = new StringDictionary();
+    private final int transferencia;
+    private Janela[] janelas = new Janela[16];
+
+    /**
+     * @param janela Duração da janela, na unidade do TIMESTAMP (segundos)
+     * @param limiteBytes Total de bytes por janela acima do qual o usuário gera alerta
+     */
+    public ExfiltrationDetector(long janela, long limiteBytes) {
+        if (janela <= 0) {
+            throw new IllegalArgumentException("janela deve ser positiva: " + janela);
+        }
+        if (limiteBytes < 0) {
+            throw new IllegalArgumentException("limiteBytes negativo: " + limiteBytes);
+        }
+        this.janela = janela;
+        this.limiteBytes = limiteBytes;
+        this.transferencia = acoes.codificar(ACAO_TRANSFERENCIA);
+    }
+
+    /**
+     * Lê o CSV em uma única passada, sem montar uma tabela, e devolve os
+     * alertas na ordem em que foram emitidos. O estado continua valendo para
+     * eventos registrados depois.
+     *
+     * @param arquivo Caminho do CSV de logs
+     * @throws IOException Se houver erro de leitura ou linha malformada
+     */
+    public synchronized List<AlertaExfiltracao> analisar(Path arquivo) throws IOException {
+        List<AlertaExfiltracao> alertas = new ArrayList<>();
+        try (LogReader leitor = LogReader.abrir(arquivo)) {
+            while (leitor.proximo()) {
+                if (leitor.codificar(LogReader.ACTION_TYPE, acoes) != transferencia) {
+                    continue;
+                }
+                AlertaExfiltracao alerta = registrarCodificado(leitor.timestamp(),
+                        leitor.codificar(LogReader.USER_ID, usuarios), leitor.bytesTransferidos());
+                if (alerta != null) {
+                    alertas.add(alerta);
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " em " + arquivo, e);
+        }
+        return alertas;
+    }
+
+    /**
+     * Registra um evento, na ordem em que aparece no log. Eventos que não são
+     * {@value #ACAO_TRANSFERENCIA} são ignorados.
+     *
+     * @return O alerta emitido por este evento, ou null
+     */
+    public synchronized AlertaExfiltracao registrar(long timestamp, String userId, String actionType,
+                                                    long bytesTransferred) {
+        if (!ACAO_TRANSFERENCIA.equals(actionType)) {
+            return null;
+        }
+        return registrarCodificado(timestamp, usuarios.codificar(userId), bytesTransferred);
+    }
+
+    public AlertaExfiltracao registrar(Alerta evento) {
+        return registrar(evento.getTimestamp(), evento.getUserId(), evento.getActionType(),
+                evento.getBytesTransferred());
+    }
+
+    /**
+     * Bytes transferidos pelo usuário na janela que termina na última
+     * transferência dele.
+     */
+    public synchronized long bytesNaJanela(String userId) {
+        int usuario = usuarios.codigo(userId);
+        return usuario < 0 || janelas[usuario] == null ? 0 : janelas[usuario].soma;
+    }
+
+    private AlertaExfiltracao registrarCodificado(long timestamp, int usuario, long bytes) {
+        if (usuario >= janelas.length) {
+            janelas = Arrays.copyOf(janelas, Math.max(usuario + 1, janelas.length * 2));
+        }
+        Janela estado = janelas[usuario];
+        if (estado == null) {
+            estado = janelas[usuario] = new Janela();
+        }
+        long agora = Math.max(timestamp, estado.ultimo);
+        estado.adicionar(agora, bytes);
+        estado.expirar(agora - janela);
+        if (estado.soma <= limiteBytes) {
+            estado.emAlerta = false;
+            return null;
+        }
+        if (estado.emAlerta) {
+            return null;
+        }
+        estado.emAlerta = true;
+        return new AlertaExfiltracao(usuarios.valor(usuario), agora, estado.maisAntigo(), estado.soma,
+                estado.tamanho, estado.maior());
+    }
+
+    /**
+     * Transferências de um usuário dentro da janela.
+     */
+    private static final class Janela {
+
+        // Buffer circular com as transferências da janela, da mais antiga à mais nova
+        private long[] timestamps = new long[4];
+        private long[] bytes = new long[4];
+        private int primeiro;
+        private int tamanho;
+        private long soma;
+        private long ultimo = Long.MIN_VALUE;
+        private boolean emAlerta;
+
+        // Fila monotônica com bytes decrescentes: sequência de cada transferência
+        // (posição desde a primeira do usuário) e seus bytes
+        private long[] filaSequencias = new long[4];
+        private long[] filaBytes = new long[4];
+        private int filaPrimeiro;
+        private int filaTamanho;
+        private long removidas;
+
+        void adicionar(long timestamp, long quantidade) {
+            if (tamanho == timestamps.length) {
+                timestamps = crescer(timestamps, primeiro, tamanho);
+                bytes = crescer(bytes, primeiro, tamanho);
+                primeiro = 0;
+            }
+            int i = (primeiro + tamanho) & (timestamps.length - 1);
+            timestamps[i] = timestamp;
+            bytes[i] = quantidade;
+            long sequencia = removidas + tamanho;
+            tamanho++;
+            soma += quantidade;
+            ultimo = timestamp;
+
+            int mascara = filaBytes.length - 1;
+            while (filaTamanho > 0 && filaBytes[(filaPrimeiro + filaTamanho - 1) & mascara] <= quantidade) {
+                filaTamanho--;
+            }
+            if (filaTamanho == filaBytes.length) {
+                filaSequencias = crescer(filaSequencias, filaPrimeiro, filaTamanho);
+                filaBytes = crescer(filaBytes, filaPrimeiro, filaTamanho);
+                filaPrimeiro = 0;
+                mascara = filaBytes.length - 1;
+            }
+            int f = (filaPrimeiro + filaTamanho) & mascara;
+            filaSequencias[f] = sequencia;
+            filaBytes[f] = quantidade;
+            filaTamanho++;
+        }
+
+        /** Remove as transferências com timestamp menor ou igual ao limite. */
+        void expirar(long limite) {
+            int mascara = timestamps.length - 1;
+            while (tamanho > 0 && timestamps[primeiro] <= limite) {
+                soma -= bytes[primeiro];
+                primeiro = (primeiro + 1) & mascara;
+                tamanho--;
+                removidas++;
+            }
+            int mascaraFila = filaBytes.length - 1;
+            while (filaTamanho > 0 && filaSequencias[filaPrimeiro] < removidas) {
+                filaPrimeiro = (filaPrimeiro + 1) & mascaraFila;
+                filaTamanho--;
+            }
+        }
+
+        long maisAntigo() {
+            return timestamps[primeiro];
+        }
+
+        long maior() {
+            return filaBytes[filaPrimeiro];
+        }
+
+        /** Dobra a capacidade de um buffer circular, desenrolando-o a partir da posição 0. */
+        private static long[] crescer(long[] buffer, int primeiro, int tamanho) {
+            long[] novo = new long[buffer.length * 2];
+            int ate = Math.min(tamanho, buffer.length - primeiro);
+            System.arraycopy(buffer, primeiro, novo, 0, ate);
+            System.arraycopy(buffer, 0, novo, ate, tamanho - ate);
+            return novo;
+        }
+    }
+}
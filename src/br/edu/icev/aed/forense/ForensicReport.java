@@ -0,0 +1,398 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.IntArrayStack;
+import br.edu.icev.aed.forense.colecoes.IntRingQueue;
+import br.edu.icev.aed.forense.colecoes.LongLongHashMap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Respostas dos 5 desafios para um arquivo, calculadas em uma única leitura.
+ *
+ * Para um CSV, {@link #gerar} percorre o arquivo uma vez com um
+ * {@link LogReader} e entrega cada linha aos 5 algoritmos juntos, sem montar
+ * uma {@link LogTable}: como os parâmetros são conhecidos antes da leitura,
+ * só são guardadas a linha do tempo pedida, os N melhores candidatos a
+ * alerta, as transferências ainda sem próximo maior, os picos já resolvidos
+ * e as arestas do grafo de recursos, além dos dicionários de textos.
+ *
+ * Isso evita as colunas por linha da tabela, mas não torna a memória
+ * independente do tamanho do arquivo: o desafio 4 guarda um par por
+ * transferência resolvida (a própria resposta), e a pilha de transferências
+ * pendentes chega a uma entrada por linha quando BYTES_TRANSFERRED nunca
+ * cresce. No pior caso o desafio 4 ocupa O(linhas) de heap. Arquivos no
+ * formato de {@link BinaryLogFormat} são mapeados e respondidos por um
+ * {@link ModeloForense}.
+ *
+ * Os resultados são os mesmos de {@link AnaliseForenseOtimizada} para os
+ * mesmos parâmetros. Instâncias são imutáveis.
+ */
+public final class ForensicReport {
+
+    private final long eventos;
+    private final Set<String> sessoesInvalidas;
+    private final List<String> linhaTempo;
+    private final List<Alerta> alertasPrioritarios;
+    private final LongLongMap picosTransferencia;
+    private final List<String> caminhoContaminacao;
+
+    private ForensicReport(long eventos, Set<String> sessoesInvalidas, List<String> linhaTempo,
+                           List<Alerta> alertasPrioritarios, LongLongMap picosTransferencia,
+                           List<String> caminhoContaminacao) {
+        this.eventos = eventos;
+        this.sessoesInvalidas = Collections.unmodifiableSet(sessoesInvalidas);
+        this.linhaTempo = Collections.unmodifiableList(linhaTempo);
+        this.alertasPrioritarios = Collections.unmodifiableList(alertasPrioritarios);
+        this.picosTransferencia = picosTransferencia;
+        this.caminhoContaminacao = caminhoContaminacao == null ? null
+                : Collections.unmodifiableList(caminhoContaminacao);
+    }
+
+    /**
+     * Lê o arquivo uma vez e responde os 5 desafios.
+     *
+     * @param arquivo Caminho do CSV (ou do arquivo binário) de logs
+     * @param sessionId Sessão (ou usuário) da linha do tempo
+     * @param n Quantidade de alertas priorizados
+     * @param recursoInicial Origem do rastreamento de contaminação
+     * @param recursoAlvo Alvo do rastreamento de contaminação
+     * @throws IOException Se houver erro de leitura ou linha malformada
+     */
+    public static ForensicReport gerar(Path arquivo, String sessionId, int n, String recursoInicial,
+                                       String recursoAlvo) throws IOException {
+        if (BinaryLogFormat.ehBinario(arquivo)) {
+            ModeloForense modelo = ModeloForense.carregar(arquivo);
+            return new ForensicReport(modelo.tabela().linhas(), modelo.sessoesInvalidas(),
+                    modelo.linhaTempo(sessionId), modelo.alertasPrioritarios(n), modelo.picosTransferencia(),
+                    modelo.caminhoMaisCurto(recursoInicial, recursoAlvo).orElse(null));
+        }
+        Varredura varredura = new Varredura(sessionId, n);
+        try (LogReader leitor = LogReader.abrir(arquivo)) {
+            while (leitor.proximo()) {
+                varredura.registrar(leitor);
+            }
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " em " + arquivo, e);
+        }
+        return varredura.relatorio(recursoInicial, recursoAlvo);
+    }
+
+    /**
+     * Quantidade de eventos lidos.
+     */
+    public long getEventos() {
+        return eventos;
+    }
+
+    /** Resposta do desafio 1. */
+    public Set<String> getSessoesInvalidas() {
+        return sessoesInvalidas;
+    }
+
+    /** Resposta do desafio 2. */
+    public List<String> getLinhaTempo() {
+        return linhaTempo;
+    }
+
+    /** Resposta do desafio 3. */
+    public List<Alerta> getAlertasPrioritarios() {
+        return alertasPrioritarios;
+    }
+
+    /** Resposta do desafio 4. */
+    public LongLongMap getPicosTransferencia() {
+        return picosTransferencia;
+    }
+
+    /** Resposta do desafio 5. */
+    public Optional<List<String>> getCaminhoContaminacao() {
+        return Optional.ofNullable(caminhoContaminacao);
+    }
+
+    /**
+     * Estado dos 5 algoritmos durante a leitura, com os textos codificados em
+     * {@link StringDictionary}.
+     */
+    private static final class Varredura {
+
+        private static final int LOGIN = 0;
+        private static final int LOGOUT = 1;
+        private static final int SEM_RECURSO = -1;
+
+        private final StringDictionary usuarios = new StringDictionary();
+        private final StringDictionary sessoes = new StringDictionary();
+        private final StringDictionary acoes = new StringDictionary();
+        private final StringDictionary recursos = new StringDictionary();
+        private long eventos;
+        private int sessoesVistas;
+        private int usuariosVistos;
+
+        // Desafio 1
+        private int[] loginsAbertos = new int[16];
+        private boolean[] invalida = new boolean[16];
+
+        // Desafio 2: ações da sessão pedida e, caso ela não exista, do usuário com esse id
+        private final String sessaoProcurada;
+        private final String usuarioProcurado;
+        private int codigoSessao = -1;
+        private boolean[] usuarioProcuradoCodigo = new boolean[16];
+        private final IntArrayStack acoesDaSessao = new IntArrayStack();
+        private final IntArrayStack acoesDoUsuario = new IntArrayStack();
+
+        // Desafio 3: seleção sobre chaves primitivas. Os dados de cada evento que
+        // entrou na seleção ficam em vetores paralelos, localizados pela sequência,
+        // e os que já saíram são descartados quando os vetores passam do limite.
+        private final TopAlertEngine selecao;
+        private final long limiteCandidatos;
+        private final LongLongHashMap candidatoPorSequencia = new LongLongHashMap();
+        private int[] codigosCandidatos = new int[5 * 16];
+        private long[] timestampsCandidatos = new long[16];
+        private long[] bytesCandidatos = new long[16];
+        private int candidatos;
+
+        // Desafio 4: pilha monotônica de transferências ainda sem próximo maior e
+        // picos resolvidos; ambos crescem com o número de linhas
+        private long[] pendentesTimestamp = new long[16];
+        private long[] pendentesBytes = new long[16];
+        private int pendentes;
+        private final LongLongMap picos = new LongLongMap();
+
+        // Desafio 5: arestas únicas, na ordem em que aparecem
+        private int[] ultimoRecursoDaSessao = new int[16];
+        private int[][] adjacencia = new int[16][];
+        private int[] graus = new int[16];
+        private final LongLongHashMap arestas = new LongLongHashMap();
+
+        Varredura(String sessionId, int n) {
+            this.sessaoProcurada = sessionId;
+            this.usuarioProcurado = sessionId == null ? null : sessionId.toLowerCase(Locale.ROOT);
+            this.selecao = new TopAlertEngine(Math.max(0, n));
+            this.limiteCandidatos = Math.max(1024, 2L * n);
+            acoes.codificar("LOGIN");
+            acoes.codificar("LOGOUT");
+            Arrays.fill(ultimoRecursoDaSessao, SEM_RECURSO);
+        }
+
+        void registrar(LogReader leitor) {
+            int usuario = leitor.codificar(LogReader.USER_ID, usuarios);
+            int sessao = leitor.codificar(LogReader.SESSION_ID, sessoes);
+            int acao = leitor.codificar(LogReader.ACTION_TYPE, acoes);
+            int recurso = leitor.codificar(LogReader.TARGET_RESOURCE, recursos);
+            long timestamp = leitor.timestamp();
+            long bytes = leitor.bytesTransferidos();
+            long sequencia = eventos++;
+            garantirCapacidade();
+
+            if (acao == LOGIN) {
+                if (loginsAbertos[sessao]++ > 0) {
+                    invalida[sessao] = true;
+                }
+            } else if (acao == LOGOUT) {
+                if (loginsAbertos[sessao] == 0) {
+                    invalida[sessao] = true;
+                } else {
+                    loginsAbertos[sessao]--;
+                }
+            }
+
+            if (sessao == codigoSessao) {
+                acoesDaSessao.empilhar(acao);
+            }
+            if (codigoSessao < 0 && usuarioProcuradoCodigo[usuario]) {
+                acoesDoUsuario.empilhar(acao);
+            }
+
+            int severidade = leitor.severidade();
+            if (selecao.oferecer(severidade, timestamp, bytes, sequencia)) {
+                guardarCandidato(sequencia, usuario, sessao, acao, recurso, severidade, timestamp, bytes);
+            }
+
+            while (pendentes > 0 && pendentesBytes[pendentes - 1] < bytes) {
+                picos.colocar(pendentesTimestamp[--pendentes], timestamp);
+            }
+            if (pendentes == pendentesBytes.length) {
+                pendentesBytes = Arrays.copyOf(pendentesBytes, pendentes * 2);
+                pendentesTimestamp = Arrays.copyOf(pendentesTimestamp, pendentes * 2);
+            }
+            pendentesTimestamp[pendentes] = timestamp;
+            pendentesBytes[pendentes++] = bytes;
+
+            int anterior = ultimoRecursoDaSessao[sessao];
+            ultimoRecursoDaSessao[sessao] = recurso;
+            if (anterior != SEM_RECURSO && anterior != recurso
+                    && arestas.colocarSeAusente(((long) anterior << 32) | recurso, 0)) {
+                adjacencia[anterior] = anexar(adjacencia[anterior], graus[anterior]++, recurso);
+            }
+        }
+
+        ForensicReport relatorio(String recursoInicial, String recursoAlvo) {
+            Set<String> sessoesInvalidas = new HashSet<>();
+            for (int s = 0; s < sessoes.tamanho(); s++) {
+                if (invalida[s]) {
+                    sessoesInvalidas.add(sessoes.valor(s));
+                }
+            }
+
+            // Enquanto a sessão não aparecia, as ações do usuário foram guardadas; se
+            // ela apareceu, só as ações dela valem
+            IntArrayStack escolhidas = codigoSessao >= 0 ? acoesDaSessao : acoesDoUsuario;
+            List<String> linhaTempo = new ArrayList<>(escolhidas.tamanho());
+            for (int i = 0; i < escolhidas.tamanho(); i++) {
+                linhaTempo.add(acoes.valor(escolhidas.obter(i)));
+            }
+
+            List<Alerta> alertas = new ArrayList<>();
+            for (long sequencia : selecao.sequencias()) {
+                int c = (int) candidatoPorSequencia.obter(sequencia, -1);
+                alertas.add(new Alerta(timestampsCandidatos[c], usuarios.valor(codigosCandidatos[5 * c]),
+                        sessoes.valor(codigosCandidatos[5 * c + 1]), acoes.valor(codigosCandidatos[5 * c + 2]),
+                        recursos.valor(codigosCandidatos[5 * c + 3]), codigosCandidatos[5 * c + 4],
+                        bytesCandidatos[c]));
+            }
+
+            return new ForensicReport(eventos, sessoesInvalidas, linhaTempo, alertas, picos,
+                    caminhoMaisCurto(recursoInicial, recursoAlvo));
+        }
+
+        private void guardarCandidato(long sequencia, int usuario, int sessao, int acao, int recurso,
+                                      int severidade, long timestamp, long bytes) {
+            if (candidatos == timestampsCandidatos.length) {
+                int capacidade = candidatos * 2;
+                codigosCandidatos = Arrays.copyOf(codigosCandidatos, 5 * capacidade);
+                timestampsCandidatos = Arrays.copyOf(timestampsCandidatos, capacidade);
+                bytesCandidatos = Arrays.copyOf(bytesCandidatos, capacidade);
+            }
+            int c = candidatos;
+            codigosCandidatos[5 * c] = usuario;
+            codigosCandidatos[5 * c + 1] = sessao;
+            codigosCandidatos[5 * c + 2] = acao;
+            codigosCandidatos[5 * c + 3] = recurso;
+            codigosCandidatos[5 * c + 4] = severidade;
+            timestampsCandidatos[c] = timestamp;
+            bytesCandidatos[c] = bytes;
+            candidatoPorSequencia.colocar(sequencia, candidatos++);
+            if (candidatos >= limiteCandidatos) {
+                compactarCandidatos();
+            }
+        }
+
+        /** Descarta os dados dos candidatos que já saíram da seleção. */
+        private void compactarCandidatos() {
+            long[] vivas = selecao.sequencias();
+            int capacidade = Math.max(16, 2 * vivas.length);
+            int[] codigos = new int[5 * capacidade];
+            long[] timestamps = new long[capacidade];
+            long[] bytes = new long[capacidade];
+            LongLongHashMap posicoes = new LongLongHashMap(vivas.length);
+            for (int i = 0; i < vivas.length; i++) {
+                int c = (int) candidatoPorSequencia.obter(vivas[i], -1);
+                System.arraycopy(codigosCandidatos, 5 * c, codigos, 5 * i, 5);
+                timestamps[i] = timestampsCandidatos[c];
+                bytes[i] = bytesCandidatos[c];
+                posicoes.colocar(vivas[i], i);
+            }
+            candidatoPorSequencia.limpar();
+            posicoes.paraCada(candidatoPorSequencia::colocar);
+            codigosCandidatos = codigos;
+            timestampsCandidatos = timestamps;
+            bytesCandidatos = bytes;
+            candidatos = vivas.length;
+        }
+
+        /** BFS com o primeiro pai descoberto, como em {@link ResourceGraph#caminhoMaisCurto}. */
+        private List<String> caminhoMaisCurto(String recursoInicial, String recursoAlvo) {
+            int de = codigoRecurso(recursoInicial);
+            int para = codigoRecurso(recursoAlvo);
+            if (de < 0 || para < 0) {
+                return null;
+            }
+            int[] pai = new int[recursos.tamanho()];
+            Arrays.fill(pai, SEM_RECURSO);
+            pai[de] = de;
+            IntRingQueue fila = new IntRingQueue();
+            fila.enfileirar(de);
+            while (!fila.vazia() && pai[para] == SEM_RECURSO) {
+                int atual = fila.desenfileirar();
+                for (int i = 0; i < graus[atual]; i++) {
+                    int vizinho = adjacencia[atual][i];
+                    if (pai[vizinho] == SEM_RECURSO) {
+                        pai[vizinho] = atual;
+                        fila.enfileirar(vizinho);
+                    }
+                }
+            }
+            if (pai[para] == SEM_RECURSO) {
+                return null;
+            }
+            IntArrayStack inverso = new IntArrayStack();
+            for (int r = para; r != de; r = pai[r]) {
+                inverso.empilhar(r);
+            }
+            inverso.empilhar(de);
+            List<String> caminho = new ArrayList<>(inverso.tamanho());
+            while (!inverso.vazia()) {
+                caminho.add(recursos.valor(inverso.desempilhar()));
+            }
+            return caminho;
+        }
+
+        /** Como {@link ResourceIndex#codigo}: exato, ou a primeira grafia igual a menos de maiúsculas. */
+        private int codigoRecurso(String nome) {
+            if (nome == null) {
+                return -1;
+            }
+            int exato = recursos.codigo(nome);
+            if (exato >= 0) {
+                return exato;
+            }
+            for (int r = 0; r < recursos.tamanho(); r++) {
+                if (recursos.valor(r).equalsIgnoreCase(nome)) {
+                    return r;
+                }
+            }
+            return -1;
+        }
+
+        /** Cresce os vetores indexados por código e examina os códigos novos. */
+        private void garantirCapacidade() {
+            if (sessoes.tamanho() > loginsAbertos.length) {
+                int capacidade = Math.max(sessoes.tamanho(), loginsAbertos.length * 2);
+                loginsAbertos = Arrays.copyOf(loginsAbertos, capacidade);
+                invalida = Arrays.copyOf(invalida, capacidade);
+                int anterior = ultimoRecursoDaSessao.length;
+                ultimoRecursoDaSessao = Arrays.copyOf(ultimoRecursoDaSessao, capacidade);
+                Arrays.fill(ultimoRecursoDaSessao, anterior, capacidade, SEM_RECURSO);
+            }
+            for (; sessoesVistas < sessoes.tamanho(); sessoesVistas++) {
+                if (sessoes.valor(sessoesVistas).equals(sessaoProcurada)) {
+                    codigoSessao = sessoesVistas;
+                }
+            }
+            if (usuarios.tamanho() > usuarioProcuradoCodigo.length) {
+                usuarioProcuradoCodigo = Arrays.copyOf(usuarioProcuradoCodigo,
+                        Math.max(usuarios.tamanho(), usuarioProcuradoCodigo.length * 2));
+            }
+            for (; usuariosVistos < usuarios.tamanho(); usuariosVistos++) {
+                usuarioProcuradoCodigo[usuariosVistos] =
+                        usuarios.valor(usuariosVistos).toLowerCase(Locale.ROOT).equals(usuarioProcurado);
+            }
+            if (recursos.tamanho() > adjacencia.length) {
+                int capacidade = Math.max(recursos.tamanho(), adjacencia.length * 2);
+                adjacencia = Arrays.copyOf(adjacencia, capacidade);
+                graus = Arrays.copyOf(graus, capacidade);
+            }
+        }
+
+        private static int[] anexar(int[] vetor, int tamanho, int valor) {
+            if (vetor == null) {
+                vetor = new int[4];
+            } else if (tamanho == vetor.length) {
+                vetor = Arrays.copyOf(vetor, tamanho * 2);
+            }
+            vetor[tamanho] = valor;
+            return vetor;
+        }
+    }
+}
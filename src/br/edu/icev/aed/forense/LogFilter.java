@@ -0,0 +1,448 @@
+package br.edu.icev.aed.forense;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Filtro de eventos montado a partir de predicados simples sobre as colunas
+ * de uma {@link LogTable}, combinados com {@link #e}, {@link #ou} e
+ * {@link #negar}. Por exemplo:
+ *
+ * <pre>{@code
+ * LogFilter f = LogFilter.severidadeMinima(8)
+ *         .e(LogFilter.acao("PERMISSION_DENIED"))
+ *         .e(LogFilter.recursoComPrefixo("/etc/"));
+ * int[] linhas = f.compilar(tabela).linhas();
+ * }</pre>
+ *
+ * Um filtro é compilado uma vez por tabela: os textos são traduzidos para
+ * códigos dos dicionários (um código, ou um vetor de pertinência por código
+ * para listas e prefixos), de modo que a avaliação compara apenas inteiros.
+ * A avaliação é feita coluna a coluna sobre vetores de seleção (números de
+ * linha em ordem crescente): cada predicado de um {@link #e} percorre só as
+ * linhas que sobraram dos anteriores, por isso os mais seletivos devem vir
+ * primeiro. Intervalos de tempo em tabelas ordenadas por timestamp viram
+ * uma busca binária, e faixas de severidade sobre a tabela inteira comparam
+ * 8 severidades por vez (SWAR, desativado junto com o de {@link LogReader}).
+ *
+ * Filtros e filtros compilados são imutáveis e podem ser usados por várias
+ * threads.
+ */
+public abstract class LogFilter {
+
+    LogFilter() {
+    }
+
+    /** Eventos com SEVERITY_LEVEL maior ou igual ao mínimo. */
+    public static LogFilter severidadeMinima(int minimo) {
+        return severidadeEntre(minimo, Integer.MAX_VALUE);
+    }
+
+    /** Eventos com SEVERITY_LEVEL entre os limites (inclusive). */
+    public static LogFilter severidadeEntre(int minimo, int maximo) {
+        return new Faixa(Faixa.SEVERIDADE, minimo, maximo);
+    }
+
+    /** Eventos com BYTES_TRANSFERRED maior ou igual ao mínimo. */
+    public static LogFilter bytesMinimos(long minimo) {
+        return new Faixa(Faixa.BYTES, minimo, Long.MAX_VALUE);
+    }
+
+    /** Eventos com TIMESTAMP entre {@code inicio} e {@code fim} (inclusive). */
+    public static LogFilter intervalo(long inicio, long fim) {
+        return new Faixa(Faixa.TIMESTAMP, inicio, fim);
+    }
+
+    /** Eventos com ACTION_TYPE igual a algum dos valores. */
+    public static LogFilter acao(String... acoes) {
+        return new Codigos(Codigos.ACAO, false, acoes.clone());
+    }
+
+    /** Eventos com USER_ID igual a algum dos valores. */
+    public static LogFilter usuario(String... usuarios) {
+        return new Codigos(Codigos.USUARIO, false, usuarios.clone());
+    }
+
+    /** Eventos com SESSION_ID igual a algum dos valores. */
+    public static LogFilter sessao(String... sessoes) {
+        return new Codigos(Codigos.SESSAO, false, sessoes.clone());
+    }
+
+    /** Eventos com TARGET_RESOURCE igual a algum dos valores. */
+    public static LogFilter recurso(String... recursos) {
+        return new Codigos(Codigos.RECURSO, false, recursos.clone());
+    }
+
+    /** Eventos cujo TARGET_RESOURCE começa com o prefixo, sem diferenciar maiúsculas. */
+    public static LogFilter recursoComPrefixo(String prefixo) {
+        return new Codigos(Codigos.RECURSO, true, new String[] {prefixo});
+    }
+
+    /** Eventos que passam por este filtro e pelo outro. */
+    public LogFilter e(LogFilter outro) {
+        return new Composto(true, this, Objects.requireNonNull(outro));
+    }
+
+    /** Eventos que passam por este filtro ou pelo outro. */
+    public LogFilter ou(LogFilter outro) {
+        return new Composto(false, this, Objects.requireNonNull(outro));
+    }
+
+    /** Eventos que não passam por este filtro. */
+    public LogFilter negar() {
+        return new Negacao(this);
+    }
+
+    /**
+     * Traduz o filtro para os códigos e colunas da tabela.
+     */
+    public Compilado compilar(LogTable tabela) {
+        return new Compilado(tabela, preparar(tabela));
+    }
+
+    abstract Avaliador preparar(LogTable tabela);
+
+    /**
+     * Filtro pronto para ser avaliado sobre uma tabela.
+     */
+    public static final class Compilado {
+
+        private final LogTable tabela;
+        private final Avaliador avaliador;
+
+        private Compilado(LogTable tabela, Avaliador avaliador) {
+            this.tabela = tabela;
+            this.avaliador = avaliador;
+        }
+
+        /**
+         * Linhas da tabela que passam pelo filtro, em ordem crescente.
+         */
+        public int[] linhas() {
+            return avaliador.filtrar(null);
+        }
+
+        /**
+         * Linhas do vetor informado (em ordem crescente) que passam pelo filtro.
+         */
+        public int[] linhas(int[] candidatas) {
+            return avaliador.filtrar(candidatas.clone());
+        }
+
+        public int contar() {
+            return linhas().length;
+        }
+    }
+
+    /**
+     * Avaliação de um filtro já traduzido para uma tabela.
+     */
+    interface Avaliador {
+        /**
+         * @param entrada Linhas candidatas em ordem crescente, ou null para todas;
+         *                pode ser reaproveitado como saída
+         * @return As linhas candidatas que passam, em ordem crescente
+         */
+        int[] filtrar(int[] entrada);
+    }
+
+    private static final int[] NENHUMA = new int[0];
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Faixa de valores de uma coluna numérica. */
+    private static final class Faixa extends LogFilter {
+
+        static final int SEVERIDADE = 0;
+        static final int BYTES = 1;
+        static final int TIMESTAMP = 2;
+
+        private final int coluna;
+        private final long minimo;
+        private final long maximo;
+
+        Faixa(int coluna, long minimo, long maximo) {
+            this.coluna = coluna;
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+
+        @Override
+        Avaliador preparar(LogTable tabela) {
+            return entrada -> {
+                if (minimo > maximo) {
+                    return NENHUMA;
+                }
+                if (coluna == TIMESTAMP && entrada == null && tabela.ordenadaPorTempo()) {
+                    int de = tabela.primeiraLinhaDesde(minimo);
+                    int ate = Math.max(de, tabela.primeiraLinhaApos(maximo));
+                    int[] linhas = new int[ate - de];
+                    for (int i = 0; i < linhas.length; i++) {
+                        linhas[i] = de + i;
+                    }
+                    return linhas;
+                }
+                switch (coluna) {
+                    case SEVERIDADE:
+                        return entrada == null && LogReader.SWAR
+                                ? filtrarEmBlocos(tabela.colunaSeveridades(), tabela.linhas())
+                                : filtrar(tabela.colunaSeveridades(), tabela.linhas(), entrada);
+                    case BYTES:
+                        return filtrar(tabela.colunaBytes(), tabela.linhas(), entrada);
+                    default:
+                        return filtrar(tabela.colunaTimestamps(), tabela.linhas(), entrada);
+                }
+            };
+        }
+
+        private int[] filtrar(byte[] valores, int linhas, int[] entrada) {
+            int total = entrada == null ? linhas : entrada.length;
+            int[] saida = entrada == null ? new int[linhas] : entrada;
+            int n = 0;
+            for (int k = 0; k < total; k++) {
+                int i = entrada == null ? k : entrada[k];
+                int v = valores[i];
+                saida[n] = i;
+                n += (v >= minimo && v <= maximo) ? 1 : 0;
+            }
+            return Arrays.copyOf(saida, n);
+        }
+
+        /**
+         * Severidades de todas as linhas, 8 por vez. A tabela só guarda
+         * severidades entre 0 e {@link LogReader#SEVERIDADE_MAXIMA} (o leitor do
+         * CSV e o do formato binário rejeitam as demais), e com valores abaixo de
+         * 128 {@code (v | 0x80) - m} mantém o bit alto de cada byte exatamente
+         * quando v >= m, sem empréstimo entre bytes.
+         */
+        private int[] filtrarEmBlocos(byte[] valores, int linhas) {
+            if (minimo > LogReader.SEVERIDADE_MAXIMA || maximo < 0) {
+                return NENHUMA;
+            }
+            int[] saida = new int[linhas];
+            int n = 0;
+            int i = 0;
+            long minimos = Math.max(0, minimo) * LogReader.UNS;
+            long acimaDoMaximo = (Math.min(LogReader.SEVERIDADE_MAXIMA, maximo) + 1) * LogReader.UNS;
+            for (; i + Long.BYTES <= linhas; i += Long.BYTES) {
+                long comBitAlto = (long) LONGS.get(valores, i) | LogReader.ALTOS;
+                long selecionados = ((comBitAlto - minimos) & ~(comBitAlto - acimaDoMaximo)) & LogReader.ALTOS;
+                for (; selecionados != 0; selecionados &= selecionados - 1) {
+                    saida[n++] = i + (Long.numberOfTrailingZeros(selecionados) >>> 3);
+                }
+            }
+            for (; i < linhas; i++) {
+                int v = valores[i];
+                saida[n] = i;
+                n += (v >= minimo && v <= maximo) ? 1 : 0;
+            }
+            return Arrays.copyOf(saida, n);
+        }
+
+        private int[] filtrar(long[] valores, int linhas, int[] entrada) {
+            int total = entrada == null ? linhas : entrada.length;
+            int[] saida = entrada == null ? new int[linhas] : entrada;
+            int n = 0;
+            for (int k = 0; k < total; k++) {
+                int i = entrada == null ? k : entrada[k];
+                long v = valores[i];
+                saida[n] = i;
+                n += (v >= minimo && v <= maximo) ? 1 : 0;
+            }
+            return Arrays.copyOf(saida, n);
+        }
+    }
+
+    /** Valores de uma coluna de texto, comparados pelo código do dicionário. */
+    private static final class Codigos extends LogFilter {
+
+        static final int USUARIO = 0;
+        static final int SESSAO = 1;
+        static final int ACAO = 2;
+        static final int RECURSO = 3;
+
+        private final int coluna;
+        private final boolean prefixo;
+        private final String[] valores;
+
+        Codigos(int coluna, boolean prefixo, String[] valores) {
+            this.coluna = coluna;
+            this.prefixo = prefixo;
+            this.valores = valores;
+        }
+
+        @Override
+        Avaliador preparar(LogTable tabela) {
+            StringDictionary dicionario;
+            switch (coluna) {
+                case USUARIO:
+                    dicionario = tabela.dicionarioUsuarios();
+                    break;
+                case SESSAO:
+                    dicionario = tabela.dicionarioSessoes();
+                    break;
+                case ACAO:
+                    dicionario = tabela.dicionarioAcoes();
+                    break;
+                default:
+                    dicionario = tabela.dicionarioRecursos();
+                    break;
+            }
+            boolean[] aceito = new boolean[dicionario.tamanho()];
+            int aceitos = 0;
+            int unico = -1;
+            if (prefixo) {
+                String inicio = valores[0];
+                for (int c = 0; c < aceito.length; c++) {
+                    if (dicionario.valor(c).regionMatches(true, 0, inicio, 0, inicio.length())) {
+                        aceito[c] = true;
+                        aceitos++;
+                        unico = c;
+                    }
+                }
+            } else {
+                for (String valor : valores) {
+                    int c = dicionario.codigo(valor);
+                    if (c >= 0 && !aceito[c]) {
+                        aceito[c] = true;
+                        aceitos++;
+                        unico = c;
+                    }
+                }
+            }
+            if (aceitos == 0) {
+                return entrada -> NENHUMA;
+            }
+            if (aceitos == 1) {
+                int codigo = unico;
+                return entrada -> igual(coluna(tabela), tabela.linhas(), entrada, codigo);
+            }
+            return entrada -> pertence(coluna(tabela), tabela.linhas(), entrada, aceito);
+        }
+
+        private int[] coluna(LogTable tabela) {
+            switch (coluna) {
+                case USUARIO:
+                    return tabela.colunaUsuarios();
+                case SESSAO:
+                    return tabela.colunaSessoes();
+                case ACAO:
+                    return tabela.colunaAcoes();
+                default:
+                    return tabela.colunaRecursos();
+            }
+        }
+
+        private static int[] igual(int[] codigos, int linhas, int[] entrada, int codigo) {
+            int total = entrada == null ? linhas : entrada.length;
+            int[] saida = entrada == null ? new int[linhas] : entrada;
+            int n = 0;
+            for (int k = 0; k < total; k++) {
+                int i = entrada == null ? k : entrada[k];
+                saida[n] = i;
+                n += codigos[i] == codigo ? 1 : 0;
+            }
+            return Arrays.copyOf(saida, n);
+        }
+
+        private static int[] pertence(int[] codigos, int linhas, int[] entrada, boolean[] aceito) {
+            int total = entrada == null ? linhas : entrada.length;
+            int[] saida = entrada == null ? new int[linhas] : entrada;
+            int n = 0;
+            for (int k = 0; k < total; k++) {
+                int i = entrada == null ? k : entrada[k];
+                saida[n] = i;
+                n += aceito[codigos[i]] ? 1 : 0;
+            }
+            return Arrays.copyOf(saida, n);
+        }
+    }
+
+    /** Conjunção (cada filtro sobre o que sobrou do anterior) ou disjunção (união das seleções). */
+    private static final class Composto extends LogFilter {
+
+        private final boolean conjuncao;
+        private final LogFilter primeiro;
+        private final LogFilter segundo;
+
+        Composto(boolean conjuncao, LogFilter primeiro, LogFilter segundo) {
+            this.conjuncao = conjuncao;
+            this.primeiro = primeiro;
+            this.segundo = segundo;
+        }
+
+        @Override
+        Avaliador preparar(LogTable tabela) {
+            Avaliador a = primeiro.preparar(tabela);
+            Avaliador b = segundo.preparar(tabela);
+            if (conjuncao) {
+                return entrada -> {
+                    int[] parcial = a.filtrar(entrada);
+                    return parcial.length == 0 ? parcial : b.filtrar(parcial);
+                };
+            }
+            return entrada -> {
+                int[] copia = entrada == null ? null : entrada.clone();
+                return unir(a.filtrar(entrada), b.filtrar(copia));
+            };
+        }
+
+        private static int[] unir(int[] x, int[] y) {
+            int[] uniao = new int[x.length + y.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < x.length && j < y.length) {
+                if (x[i] < y[j]) {
+                    uniao[n++] = x[i++];
+                } else if (x[i] > y[j]) {
+                    uniao[n++] = y[j++];
+                } else {
+                    uniao[n++] = x[i++];
+                    j++;
+                }
+            }
+            while (i < x.length) {
+                uniao[n++] = x[i++];
+            }
+            while (j < y.length) {
+                uniao[n++] = y[j++];
+            }
+            return Arrays.copyOf(uniao, n);
+        }
+    }
+
+    /** Complemento da seleção do filtro dentro das linhas candidatas. */
+    private static final class Negacao extends LogFilter {
+
+        private final LogFilter filtro;
+
+        Negacao(LogFilter filtro) {
+            this.filtro = filtro;
+        }
+
+        @Override
+        Avaliador preparar(LogTable tabela) {
+            Avaliador a = filtro.preparar(tabela);
+            return entrada -> {
+                int[] candidatas = entrada == null ? null : entrada.clone();
+                int[] excluidas = a.filtrar(entrada);
+                int total = candidatas == null ? tabela.linhas() : candidatas.length;
+                int[] saida = new int[total - excluidas.length];
+                int n = 0;
+                int j = 0;
+                for (int k = 0; k < total; k++) {
+                    int i = candidatas == null ? k : candidatas[k];
+                    if (j < excluidas.length && excluidas[j] == i) {
+                        j++;
+                    } else {
+                        saida[n++] = i;
+                    }
+                }
+                return saida;
+            };
+        }
+    }
+}
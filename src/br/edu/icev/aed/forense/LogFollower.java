@@ -0,0 +1,248 @@
+package br.edu.icev.aed.forense;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acompanha um arquivo de logs em crescimento, como {@code tail -F}, e
+ * entrega cada linha nova a uma {@link AnaliseForenseIncremental}.
+ *
+ * Apenas o sufixo ainda não lido é processado, e só até a última linha
+ * completa; uma linha parcial espera o próximo {@code '\n'}. Se o arquivo for
+ * truncado, a leitura recomeça do início. Se ele for rotacionado (renomeado
+ * e recriado com o mesmo nome), o restante do arquivo antigo é lido antes de
+ * passar ao novo, inclusive uma última linha sem {@code '\n'}, e o novo é
+ * lido desde o início.
+ *
+ * A rotação é reconhecida pela identidade do arquivo
+ * ({@link BasicFileAttributes#fileKey()}). Em sistemas de arquivos que não a
+ * oferecem, o arquivo é considerado outro quando fica menor que a posição já
+ * lida ou quando seus primeiros bytes (até {@value #BYTES_ASSINATURA}) deixam
+ * de ser iguais aos do arquivo aberto.
+ *
+ * {@link #atualizar()} pode ser chamado diretamente (polling) ou por uma
+ * thread em segundo plano iniciada com {@link #iniciar(long)}, que usa um
+ * {@link WatchService} no diretório do arquivo.
+ */
+public final class LogFollower implements Closeable {
+
+    private static final int BLOCO_BUSCA = 64 * 1024;
+    private static final int BYTES_ASSINATURA = 4096;
+
+    private final Path arquivo;
+    private final AnaliseForenseIncremental analise;
+
+    private FileChannel canal;
+    private Object chaveArquivo;
+    private long posicao;
+    private long eventosLidos;
+
+    private volatile Thread observador;
+    private volatile IOException ultimoErro;
+
+    /**
+     * @param arquivo Arquivo a ser acompanhado (pode ainda não existir)
+     * @param analise Destino dos eventos lidos
+     */
+    public LogFollower(Path arquivo, AnaliseForenseIncremental analise) {
+        this.arquivo = arquivo.toAbsolutePath().normalize();
+        this.analise = Objects.requireNonNull(analise);
+    }
+
+    /**
+     * Lê as linhas completas acrescentadas desde a última chamada,
+     * tratando truncamento e rotação do arquivo.
+     *
+     * @return Quantidade de eventos novos entregues à análise
+     * @throws IOException Se houver erro de leitura ou linha malformada
+     */
+    public synchronized long atualizar() throws IOException {
+        long antes = eventosLidos;
+        if (canal != null) {
+            lerNovasLinhas();
+        }
+        BasicFileAttributes atributos;
+        try {
+            atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return eventosLidos - antes;
+        }
+        Object chave = atributos.fileKey();
+        boolean rotacionado = canal == null
+                || (chave != null ? !chave.equals(chaveArquivo) : outroArquivo(atributos.size()));
+        if (rotacionado) {
+            if (canal != null) {
+                lerLinhaFinal();
+            }
+            fecharCanal();
+            canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            chaveArquivo = chave;
+            posicao = 0;
+        } else if (canal.size() < posicao) {
+            posicao = 0;
+        }
+        lerNovasLinhas();
+        return eventosLidos - antes;
+    }
+
+    /**
+     * Inicia uma thread daemon que chama {@link #atualizar()} a cada
+     * notificação do sistema de arquivos, ou no máximo a cada intervalo.
+     *
+     * @param intervaloMillis Intervalo máximo entre verificações
+     */
+    public synchronized void iniciar(long intervaloMillis) throws IOException {
+        if (observador != null) {
+            throw new IllegalStateException("Acompanhamento já iniciado");
+        }
+        Path diretorio = arquivo.getParent();
+        WatchService servico = diretorio.getFileSystem().newWatchService();
+        diretorio.register(servico, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        Thread thread = new Thread(() -> observar(servico, intervaloMillis), "log-follower-" + arquivo.getFileName());
+        thread.setDaemon(true);
+        observador = thread;
+        thread.start();
+    }
+
+    public synchronized long posicao() {
+        return posicao;
+    }
+
+    public synchronized long eventosLidos() {
+        return eventosLidos;
+    }
+
+    /**
+     * Último erro encontrado pela thread de acompanhamento, ou null.
+     */
+    public IOException ultimoErro() {
+        return ultimoErro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread thread = observador;
+        observador = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            fecharCanal();
+        }
+    }
+
+    private void observar(WatchService servico, long intervaloMillis) {
+        try (WatchService s = servico) {
+            while (observador == Thread.currentThread()) {
+                try {
+                    atualizar();
+                    ultimoErro = null;
+                } catch (IOException e) {
+                    ultimoErro = e;
+                }
+                WatchKey chave = s.poll(intervaloMillis, TimeUnit.MILLISECONDS);
+                if (chave != null) {
+                    chave.pollEvents();
+                    chave.reset();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // encerrado por close()
+        } catch (IOException e) {
+            ultimoErro = e;
+        }
+    }
+
+    private void lerNovasLinhas() throws IOException {
+        lerAte(fimUltimaLinhaCompleta(canal.size()));
+    }
+
+    /**
+     * Lê também a última linha do arquivo aberto, sem '\n': ela não vai mais
+     * crescer porque o arquivo foi rotacionado.
+     */
+    private void lerLinhaFinal() throws IOException {
+        lerAte(canal.size());
+    }
+
+    private void lerAte(long fim) throws IOException {
+        if (fim <= posicao) {
+            return;
+        }
+        try (LogReader leitor = LogReader.regiao(canal, posicao, fim)) {
+            eventosLidos += analise.registrarTodos(leitor);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " em " + arquivo + " (a partir do byte " + posicao + ")", e);
+        }
+        posicao = fim;
+    }
+
+    /**
+     * Sem {@code fileKey()}: se o arquivo no caminho não é mais o aberto, por
+     * ter ficado menor que a posição lida ou por começar com outros bytes.
+     */
+    private boolean outroArquivo(long tamanho) throws IOException {
+        if (tamanho < posicao) {
+            return true;
+        }
+        int comprimento = (int) Math.min(BYTES_ASSINATURA, posicao);
+        if (comprimento == 0) {
+            return false;
+        }
+        ByteBuffer aberto = lerInicio(canal, comprimento);
+        try (FileChannel atual = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return !aberto.equals(lerInicio(atual, comprimento));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static ByteBuffer lerInicio(FileChannel origem, int comprimento) throws IOException {
+        ByteBuffer inicio = ByteBuffer.allocate(comprimento);
+        while (inicio.hasRemaining() && origem.read(inicio, inicio.position()) > 0) {
+            // lê até o comprimento pedido ou o fim do arquivo
+        }
+        return inicio.flip();
+    }
+
+    /**
+     * Posição logo após o último '\n' entre a posição atual e o tamanho do arquivo.
+     */
+    private long fimUltimaLinhaCompleta(long tamanho) throws IOException {
+        ByteBuffer bloco = ByteBuffer.allocate(BLOCO_BUSCA);
+        long fim = tamanho;
+        while (fim > posicao) {
+            long inicio = Math.max(posicao, fim - BLOCO_BUSCA);
+            bloco.clear().limit((int) (fim - inicio));
+            while (bloco.hasRemaining() && canal.read(bloco, inicio + bloco.position()) > 0) {
+                // lê o bloco inteiro
+            }
+            for (int i = bloco.position() - 1; i >= 0; i--) {
+                if (bloco.get(i) == '\n') {
+                    return inicio + i + 1;
+                }
+            }
+            fim = inicio;
+        }
+        return posicao;
+    }
+
+    private void fecharCanal() throws IOException {
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package br.edu.icev.aed.forense;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Leitor do CSV de logs que mapeia o arquivo em memória e separa os campos
+ * diretamente sobre os bytes, sem criar Strings por linha.
+ *
+ * Formato esperado (README):
+ * {@code TIMESTAMP,USER_ID,SESSION_ID,ACTION_TYPE,TARGET_RESOURCE,SEVERITY_LEVEL,BYTES_TRANSFERRED}.
+ * O cabeçalho, linhas vazias e terminadores {@code \r\n} são aceitos, e um
+ * BYTES_TRANSFERRED vazio vale 0. Depois de BYTES_TRANSFERRED só são
+ * aceitos espaços; qualquer outro conteúdo torna a linha malformada, assim
+ * como um SEVERITY_LEVEL acima de {@value #SEVERIDADE_MAXIMA}.
+ *
+ * Uso típico:
+ * <pre>
+ * try (LogReader leitor = LogReader.abrir(arquivo)) {
+ *     while (leitor.proximo()) {
+ *         long ts = leitor.timestamp();
+ *         int sessao = leitor.codificar(LogReader.SESSION_ID, sessoes);
+ *     }
+ * }
+ * </pre>
+ *
+ * Arquivos maiores que a janela de mapeamento são lidos em janelas
+ * sucessivas, sempre recomeçando no início de uma linha.
+ *
+ * Os terminadores de linha e os separadores dos campos de texto são
+ * procurados 8 bytes por vez (SWAR: o bloco é lido como um long e os bytes
+ * iguais ao procurado são detectados com aritmética de inteiros), com laço
+ * byte a byte no final da janela. A propriedade de sistema
+ * {@value #PROPRIEDADE_SWAR} = {@code false} força o laço byte a byte.
+ */
+public final class LogReader implements Closeable {
+
+    public static final int USER_ID = 1;
+    public static final int SESSION_ID = 2;
+    public static final int ACTION_TYPE = 3;
+    public static final int TARGET_RESOURCE = 4;
+
+    /** Maior SEVERITY_LEVEL aceito; a {@link LogTable} guarda a severidade em um byte. */
+    public static final int SEVERIDADE_MAXIMA = Byte.MAX_VALUE;
+
+    /** Tamanho máximo de cada janela mapeada. */
+    static final long JANELA = 1L << 28;
+
+    /** Propriedade de sistema que desativa a busca de 8 bytes por vez. */
+    static final String PROPRIEDADE_SWAR = "aed.forense.swar";
+
+    static final boolean SWAR = !"false".equalsIgnoreCase(System.getProperty(PROPRIEDADE_SWAR));
+    /** Byte 0x01 e byte 0x80 repetidos nos 8 bytes de um long, para as operações SWAR. */
+    static final long UNS = 0x0101010101010101L;
+    static final long ALTOS = 0x8080808080808080L;
+    private static final long QUEBRAS = '\n' * UNS;
+    private static final long VIRGULAS = ',' * UNS;
+
+    private final FileChannel canal;
+    private final boolean fecharCanal;
+    private final long fim;
+
+    private MappedByteBuffer buffer;
+    private long baseJanela;
+    private int limite;
+    private int posicao;
+
+    private long linha;
+    private long timestamp;
+    private int severidade;
+    private long bytesTransferidos;
+    private final int[] inicioCampo = new int[TARGET_RESOURCE + 1];
+    private final int[] fimCampo = new int[TARGET_RESOURCE + 1];
+
+    private LogReader(FileChannel canal, boolean fecharCanal, long inicio, long fim) throws IOException {
+        this.canal = canal;
+        this.fecharCanal = fecharCanal;
+        this.fim = fim;
+        mapear(inicio);
+    }
+
+    /**
+     * Abre o arquivo inteiro para leitura.
+     *
+     * @param arquivo Caminho do CSV de logs
+     * @return Leitor posicionado antes do primeiro registro
+     * @throws IOException Se o arquivo não puder ser aberto ou mapeado
+     */
+    public static LogReader abrir(Path arquivo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            return new LogReader(canal, true, 0, canal.size());
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre apenas a região {@code [inicio, fim)} de um canal já aberto, que
+     * deve começar no início de uma linha. O canal não é fechado por
+     * {@link #close()}.
+     */
+    static LogReader regiao(FileChannel canal, long inicio, long fim) throws IOException {
+        return new LogReader(canal, false, inicio, fim);
+    }
+
+    /**
+     * Avança para o próximo registro, ignorando cabeçalho e linhas vazias.
+     *
+     * @return false quando não há mais registros
+     * @throws IOException Se uma linha estiver malformada
+     */
+    public boolean proximo() throws IOException {
+        while (baseJanela + posicao < fim) {
+            int fimLinha = procurarFimLinha(posicao);
+            if (fimLinha < 0) {
+                if (posicao == 0) {
+                    throw new IOException("Linha " + (linha + 1) + " maior que a janela de leitura");
+                }
+                mapear(baseJanela + posicao);
+                continue;
+            }
+            int inicioLinha = posicao;
+            posicao = fimLinha < limite ? fimLinha + 1 : fimLinha;
+            linha++;
+            int fimConteudo = fimLinha;
+            if (fimConteudo > inicioLinha && buffer.get(fimConteudo - 1) == '\r') {
+                fimConteudo--;
+            }
+            if (fimConteudo == inicioLinha || ehCabecalho(inicioLinha)) {
+                continue;
+            }
+            separarCampos(inicioLinha, fimConteudo);
+            return true;
+        }
+        return false;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public int severidade() {
+        return severidade;
+    }
+
+    public long bytesTransferidos() {
+        return bytesTransferidos;
+    }
+
+    /**
+     * Número da linha do último registro lido (contando cabeçalho e linhas vazias).
+     */
+    public long numeroLinha() {
+        return linha;
+    }
+
+    /**
+     * Código do campo de texto no dicionário informado, sem decodificar a String.
+     *
+     * @param campo Um de {@link #USER_ID}, {@link #SESSION_ID}, {@link #ACTION_TYPE}, {@link #TARGET_RESOURCE}
+     * @param dicionario Dicionário onde o valor é procurado ou inserido
+     * @return Código do valor
+     */
+    public int codificar(int campo, StringDictionary dicionario) {
+        return dicionario.codificar(buffer, inicioCampo[campo], fimCampo[campo] - inicioCampo[campo]);
+    }
+
+    /**
+     * Decodifica o campo de texto como String. Aloca a cada chamada.
+     */
+    public String texto(int campo) {
+        byte[] b = new byte[fimCampo[campo] - inicioCampo[campo]];
+        buffer.get(inicioCampo[campo], b);
+        return new String(b, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        if (fecharCanal) {
+            canal.close();
+        }
+    }
+
+    private void mapear(long inicio) throws IOException {
+        long tamanho = Math.min(JANELA, fim - inicio);
+        buffer = canal.map(FileChannel.MapMode.READ_ONLY, inicio, tamanho);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        baseJanela = inicio;
+        limite = (int) tamanho;
+        posicao = 0;
+    }
+
+    /**
+     * Posição do '\n' que encerra a linha, o fim da região quando a última
+     * linha não tem terminador, ou -1 se a linha continua após a janela.
+     */
+    private int procurarFimLinha(int de) {
+        int i = procurar(de, limite, (byte) '\n', QUEBRAS);
+        if (i < limite) {
+            return i;
+        }
+        return baseJanela + limite >= fim ? limite : -1;
+    }
+
+    /**
+     * Posição do primeiro byte igual a {@code alvo} em {@code [de, ate)}, ou
+     * {@code ate} se não houver.
+     *
+     * @param repetido O alvo repetido nos 8 bytes de um long
+     */
+    private int procurar(int de, int ate, byte alvo, long repetido) {
+        int i = de;
+        if (SWAR) {
+            // Na ordem little-endian o primeiro byte do bloco é o menos significativo,
+            // e o bit mais baixo de iguais corresponde ao primeiro byte igual
+            for (; i + Long.BYTES <= ate; i += Long.BYTES) {
+                long x = buffer.getLong(i) ^ repetido;
+                long iguais = (x - UNS) & ~x & ALTOS;
+                if (iguais != 0) {
+                    return i + (Long.numberOfTrailingZeros(iguais) >>> 3);
+                }
+            }
+        }
+        for (; i < ate; i++) {
+            if (buffer.get(i) == alvo) {
+                return i;
+            }
+        }
+        return ate;
+    }
+
+    private boolean ehCabecalho(int inicioLinha) {
+        return baseJanela + inicioLinha == 0 && !digito(buffer.get(inicioLinha));
+    }
+
+    private void separarCampos(int p, int fimLinha) throws IOException {
+        int inicio = p;
+        long ts = 0;
+        byte c;
+        while (p < fimLinha && (c = buffer.get(p)) != ',') {
+            ts = acumular(ts, c);
+            p++;
+        }
+        exigirSeparador(p, inicio, fimLinha);
+        timestamp = ts;
+        p++;
+
+        for (int campo = USER_ID; campo <= TARGET_RESOURCE; campo++) {
+            inicioCampo[campo] = p;
+            p = procurar(p, fimLinha, (byte) ',', VIRGULAS);
+            exigirSeparador(p, -1, fimLinha);
+            fimCampo[campo] = p++;
+        }
+
+        inicio = p;
+        long sev = 0;
+        while (p < fimLinha && (c = buffer.get(p)) != ',') {
+            sev = acumular(sev, c);
+            if (sev > SEVERIDADE_MAXIMA) {
+                throw malformada();
+            }
+            p++;
+        }
+        exigirSeparador(p, inicio, fimLinha);
+        severidade = (int) sev;
+        p++;
+
+        long bytes = 0;
+        while (p < fimLinha && !espaco(c = buffer.get(p))) {
+            bytes = acumular(bytes, c);
+            p++;
+        }
+        // Depois do número só pode haver espaços até o fim da linha
+        for (; p < fimLinha; p++) {
+            if (!espaco(buffer.get(p))) {
+                throw malformada();
+            }
+        }
+        bytesTransferidos = bytes;
+    }
+
+    private long acumular(long valor, byte c) throws IOException {
+        if (!digito(c)) {
+            throw malformada();
+        }
+        return valor * 10 + (c - '0');
+    }
+
+    private void exigirSeparador(int p, int inicioNumero, int fimLinha) throws IOException {
+        if (p >= fimLinha || p == inicioNumero) {
+            throw malformada();
+        }
+    }
+
+    private IOException malformada() {
+        return new IOException("Linha " + linha + " malformada");
+    }
+
+    private static boolean digito(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean espaco(byte c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+}
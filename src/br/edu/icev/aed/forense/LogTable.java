@@ -0,0 +1,502 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.IntIntHashMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Tabela colunar com os eventos de um arquivo de logs.
+ *
+ * Cada coluna é um vetor primitivo indexado pelo número da linha (0, 1, 2, ...
+ * na ordem do arquivo). Os campos de texto são guardados como códigos
+ * inteiros em dicionários compartilhados, de modo que um valor repetido
+ * ocupa 4 bytes por ocorrência em vez de uma String.
+ *
+ * Na construção é verificado se os timestamps estão em ordem não
+ * decrescente; nesse caso consultas por intervalo de tempo podem usar busca
+ * binária (ver {@link #ordenadaPorTempo()}).
+ *
+ * A tabela é imutável depois de construída e pode ser lida por várias threads.
+ */
+public final class LogTable {
+
+    /** Tamanho médio estimado de uma linha do CSV, usado para pré-dimensionar as colunas. */
+    static final int BYTES_POR_LINHA_ESTIMADOS = 48;
+
+    private final int linhas;
+    private final long[] timestamps;
+    private final byte[] severidades;
+    private final long[] bytes;
+    private final int[] usuarios;
+    private final int[] sessoes;
+    private final int[] acoes;
+    private final int[] recursos;
+
+    private final StringDictionary dicionarioUsuarios;
+    private final StringDictionary dicionarioSessoes;
+    private final StringDictionary dicionarioAcoes;
+    private final StringDictionary dicionarioRecursos;
+    private final boolean ordenadaPorTempo;
+
+    LogTable(int linhas, long[] timestamps, byte[] severidades, long[] bytes,
+             int[] usuarios, int[] sessoes, int[] acoes, int[] recursos,
+             StringDictionary dicionarioUsuarios, StringDictionary dicionarioSessoes,
+             StringDictionary dicionarioAcoes, StringDictionary dicionarioRecursos) {
+        this.linhas = linhas;
+        this.timestamps = timestamps;
+        this.severidades = severidades;
+        this.bytes = bytes;
+        this.usuarios = usuarios;
+        this.sessoes = sessoes;
+        this.acoes = acoes;
+        this.recursos = recursos;
+        this.dicionarioUsuarios = dicionarioUsuarios;
+        this.dicionarioSessoes = dicionarioSessoes;
+        this.dicionarioAcoes = dicionarioAcoes;
+        this.dicionarioRecursos = dicionarioRecursos;
+        this.ordenadaPorTempo = ordenada(timestamps, linhas);
+    }
+
+    private static boolean ordenada(long[] timestamps, int linhas) {
+        for (int i = 1; i < linhas; i++) {
+            if (timestamps[i] < timestamps[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lê o arquivo de logs para uma tabela colunar. Arquivos no formato
+     * binário de {@link BinaryLogFormat} são carregados diretamente; CSVs
+     * grandes são lidos em paralelo por {@link ParallelLogLoader} e os
+     * menores, sequencialmente.
+     *
+     * @param arquivo Caminho do CSV ou do arquivo binário de logs
+     * @return Tabela com todas as linhas do arquivo, na ordem do arquivo
+     * @throws IOException Se houver erro de leitura ou linha malformada
+     */
+    public static LogTable carregar(Path arquivo) throws IOException {
+        if (BinaryLogFormat.ehBinario(arquivo)) {
+            return BinaryLogFormat.ler(arquivo);
+        }
+        long tamanho = Files.size(arquivo);
+        if (tamanho >= ParallelLogLoader.TAMANHO_MINIMO && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return ParallelLogLoader.carregar(arquivo, ForkJoinPool.commonPool());
+        }
+        return carregarSequencial(arquivo);
+    }
+
+    /**
+     * Lê o arquivo CSV em faixas paralelas no pool informado, independente do
+     * tamanho do arquivo. O resultado é idêntico ao de {@link #carregarSequencial(Path)}.
+     */
+    public static LogTable carregarParalelo(Path arquivo, ForkJoinPool pool) throws IOException {
+        return ParallelLogLoader.carregar(arquivo, pool);
+    }
+
+    /**
+     * Lê o arquivo CSV em uma única thread.
+     */
+    public static LogTable carregarSequencial(Path arquivo) throws IOException {
+        Construtor construtor = new Construtor(Files.size(arquivo) / BYTES_POR_LINHA_ESTIMADOS);
+        try (LogReader leitor = LogReader.abrir(arquivo)) {
+            while (leitor.proximo()) {
+                construtor.adicionar(leitor);
+            }
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " em " + arquivo, e);
+        }
+        return construtor.construir();
+    }
+
+    public int linhas() {
+        return linhas;
+    }
+
+    /**
+     * Se os timestamps estão em ordem não decrescente na ordem do arquivo.
+     */
+    public boolean ordenadaPorTempo() {
+        return ordenadaPorTempo;
+    }
+
+    /**
+     * Primeira linha com timestamp maior ou igual a t, por busca binária.
+     * Só vale para tabelas {@link #ordenadaPorTempo() ordenadas por tempo}.
+     */
+    int primeiraLinhaDesde(long t) {
+        int baixo = 0;
+        int alto = linhas;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (timestamps[meio] < t) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    /**
+     * Primeira linha com timestamp maior que t, em tabela ordenada por tempo.
+     */
+    int primeiraLinhaApos(long t) {
+        return t == Long.MAX_VALUE ? linhas : primeiraLinhaDesde(t + 1);
+    }
+
+    public long timestamp(int linha) {
+        return timestamps[linha];
+    }
+
+    public int severidade(int linha) {
+        return severidades[linha];
+    }
+
+    public long bytesTransferidos(int linha) {
+        return bytes[linha];
+    }
+
+    /** Código do USER_ID em {@link #dicionarioUsuarios()}. */
+    public int usuario(int linha) {
+        return usuarios[linha];
+    }
+
+    /** Código do SESSION_ID em {@link #dicionarioSessoes()}. */
+    public int sessao(int linha) {
+        return sessoes[linha];
+    }
+
+    /** Código do ACTION_TYPE em {@link #dicionarioAcoes()}. */
+    public int acao(int linha) {
+        return acoes[linha];
+    }
+
+    /** Código do TARGET_RESOURCE em {@link #dicionarioRecursos()}. */
+    public int recurso(int linha) {
+        return recursos[linha];
+    }
+
+    public StringDictionary dicionarioUsuarios() {
+        return dicionarioUsuarios;
+    }
+
+    public StringDictionary dicionarioSessoes() {
+        return dicionarioSessoes;
+    }
+
+    public StringDictionary dicionarioAcoes() {
+        return dicionarioAcoes;
+    }
+
+    public StringDictionary dicionarioRecursos() {
+        return dicionarioRecursos;
+    }
+
+    // Acesso direto às colunas para algoritmos do pacote; os vetores não devem ser alterados
+    // e podem ter folga além de linhas().
+
+    long[] colunaTimestamps() {
+        return timestamps;
+    }
+
+    byte[] colunaSeveridades() {
+        return severidades;
+    }
+
+    long[] colunaBytes() {
+        return bytes;
+    }
+
+    int[] colunaUsuarios() {
+        return usuarios;
+    }
+
+    int[] colunaSessoes() {
+        return sessoes;
+    }
+
+    int[] colunaAcoes() {
+        return acoes;
+    }
+
+    int[] colunaRecursos() {
+        return recursos;
+    }
+
+    /**
+     * Cria um {@link Alerta} com os dados da linha.
+     */
+    public Alerta alerta(int linha) {
+        return new Alerta(timestamps[linha],
+                dicionarioUsuarios.valor(usuarios[linha]),
+                dicionarioSessoes.valor(sessoes[linha]),
+                dicionarioAcoes.valor(acoes[linha]),
+                dicionarioRecursos.valor(recursos[linha]),
+                severidades[linha], bytes[linha]);
+    }
+
+    /**
+     * Visão somente leitura da linha, sem copiar seus dados.
+     */
+    public AlertaView visao(int linha) {
+        if (linha < 0 || linha >= linhas) {
+            throw new IndexOutOfBoundsException("Linha " + linha + " fora de [0, " + linhas + ")");
+        }
+        return new AlertaView(this, linha);
+    }
+
+    /**
+     * Percorre todas as linhas, na ordem do arquivo, com uma única
+     * {@link AlertaView} reposicionada a cada linha: nenhum objeto é criado
+     * por linha. A visão só é válida durante a chamada do consumidor; para
+     * guardar um evento use {@link AlertaView#materializar()}.
+     */
+    public void paraCada(Consumer<? super AlertaView> consumidor) {
+        paraCada(0, linhas, consumidor);
+    }
+
+    /**
+     * Como {@link #paraCada(Consumer)}, nas linhas de {@code de} (inclusive)
+     * a {@code ate} (exclusive).
+     */
+    public void paraCada(int de, int ate, Consumer<? super AlertaView> consumidor) {
+        if (de < 0 || ate > linhas || de > ate) {
+            throw new IndexOutOfBoundsException("Faixa [" + de + ", " + ate + ") fora de [0, " + linhas + ")");
+        }
+        AlertaView cursor = new AlertaView(this, de);
+        for (int i = de; i < ate; i++) {
+            cursor.posicionar(i);
+            consumidor.accept(cursor);
+        }
+    }
+
+    /**
+     * Nova tabela com as linhas de {@code de} (inclusive) a {@code ate}
+     * (exclusive). Os dicionários da nova tabela contêm apenas os valores
+     * dessas linhas, na ordem de primeira ocorrência, e o custo é
+     * proporcional à quantidade de linhas copiadas.
+     */
+    LogTable selecionar(int de, int ate) {
+        return copiar(null, de, ate - de);
+    }
+
+    /**
+     * Nova tabela com as linhas informadas, na ordem do vetor.
+     */
+    LogTable selecionar(int[] linhasSelecionadas) {
+        return copiar(linhasSelecionadas, 0, linhasSelecionadas.length);
+    }
+
+    private LogTable copiar(int[] selecionadas, int de, int quantidade) {
+        long[] novosTimestamps = new long[quantidade];
+        byte[] novasSeveridades = new byte[quantidade];
+        long[] novosBytes = new long[quantidade];
+        int[] novosUsuarios = new int[quantidade];
+        int[] novasSessoes = new int[quantidade];
+        int[] novasAcoes = new int[quantidade];
+        int[] novosRecursos = new int[quantidade];
+        StringDictionary usuariosCopia = new StringDictionary();
+        StringDictionary sessoesCopia = new StringDictionary();
+        StringDictionary acoesCopia = new StringDictionary();
+        StringDictionary recursosCopia = new StringDictionary();
+        IntIntHashMap traducaoUsuarios = new IntIntHashMap();
+        IntIntHashMap traducaoSessoes = new IntIntHashMap();
+        IntIntHashMap traducaoAcoes = new IntIntHashMap();
+        IntIntHashMap traducaoRecursos = new IntIntHashMap();
+        for (int i = 0; i < quantidade; i++) {
+            int linha = selecionadas == null ? de + i : selecionadas[i];
+            novosTimestamps[i] = timestamps[linha];
+            novasSeveridades[i] = severidades[linha];
+            novosBytes[i] = bytes[linha];
+            novosUsuarios[i] = recodificar(usuarios[linha], dicionarioUsuarios, usuariosCopia, traducaoUsuarios);
+            novasSessoes[i] = recodificar(sessoes[linha], dicionarioSessoes, sessoesCopia, traducaoSessoes);
+            novasAcoes[i] = recodificar(acoes[linha], dicionarioAcoes, acoesCopia, traducaoAcoes);
+            novosRecursos[i] = recodificar(recursos[linha], dicionarioRecursos, recursosCopia, traducaoRecursos);
+        }
+        return new LogTable(quantidade, novosTimestamps, novasSeveridades, novosBytes,
+                novosUsuarios, novasSessoes, novasAcoes, novosRecursos,
+                usuariosCopia, sessoesCopia, acoesCopia, recursosCopia);
+    }
+
+    private static int recodificar(int codigo, StringDictionary origem, StringDictionary destino,
+                                   IntIntHashMap traducao) {
+        int novo = traducao.obter(codigo, -1);
+        if (novo < 0) {
+            novo = destino.importar(origem, codigo);
+            traducao.colocar(codigo, novo);
+        }
+        return novo;
+    }
+
+    /**
+     * Estimativa de memória ocupada pelas colunas e dicionários, em bytes.
+     */
+    public long bytesEstimados() {
+        return 33L * linhas
+                + dicionarioUsuarios.bytesEstimados() + dicionarioSessoes.bytesEstimados()
+                + dicionarioAcoes.bytesEstimados() + dicionarioRecursos.bytesEstimados();
+    }
+
+    /**
+     * Acumula as colunas durante a leitura, crescendo os vetores sob demanda.
+     */
+    static final class Construtor {
+        private int linhas;
+        private long[] timestamps;
+        private byte[] severidades;
+        private long[] bytes;
+        private int[] usuarios;
+        private int[] sessoes;
+        private int[] acoes;
+        private int[] recursos;
+
+        private final StringDictionary dicionarioUsuarios = new StringDictionary();
+        private final StringDictionary dicionarioSessoes = new StringDictionary();
+        private final StringDictionary dicionarioAcoes = new StringDictionary();
+        private final StringDictionary dicionarioRecursos = new StringDictionary();
+
+        Construtor(long capacidadeEstimada) {
+            int capacidade = (int) Math.max(16, Math.min(capacidadeEstimada, Integer.MAX_VALUE - 8));
+            timestamps = new long[capacidade];
+            severidades = new byte[capacidade];
+            bytes = new long[capacidade];
+            usuarios = new int[capacidade];
+            sessoes = new int[capacidade];
+            acoes = new int[capacidade];
+            recursos = new int[capacidade];
+        }
+
+        void adicionar(LogReader leitor) {
+            if (linhas == timestamps.length) {
+                crescer();
+            }
+            int i = linhas++;
+            timestamps[i] = leitor.timestamp();
+            // O LogReader só aceita severidades até SEVERIDADE_MAXIMA, que cabem em um byte
+            severidades[i] = (byte) leitor.severidade();
+            bytes[i] = leitor.bytesTransferidos();
+            usuarios[i] = leitor.codificar(LogReader.USER_ID, dicionarioUsuarios);
+            sessoes[i] = leitor.codificar(LogReader.SESSION_ID, dicionarioSessoes);
+            acoes[i] = leitor.codificar(LogReader.ACTION_TYPE, dicionarioAcoes);
+            recursos[i] = leitor.codificar(LogReader.TARGET_RESOURCE, dicionarioRecursos);
+        }
+
+        int linhas() {
+            return linhas;
+        }
+
+        LogTable construir() {
+            return new LogTable(linhas, ajustar(timestamps), ajustar(severidades), ajustar(bytes),
+                    ajustar(usuarios), ajustar(sessoes), ajustar(acoes), ajustar(recursos),
+                    dicionarioUsuarios, dicionarioSessoes, dicionarioAcoes, dicionarioRecursos);
+        }
+
+        /**
+         * Concatena partes lidas em paralelo, na ordem da lista. Os dicionários
+         * das partes são unidos em dicionários globais (preservando a ordem de
+         * primeira ocorrência) e as colunas de código são traduzidas em paralelo.
+         */
+        static LogTable unir(List<Construtor> partes, ForkJoinPool pool) {
+            StringDictionary usuarios = new StringDictionary();
+            StringDictionary sessoes = new StringDictionary();
+            StringDictionary acoes = new StringDictionary();
+            StringDictionary recursos = new StringDictionary();
+            int[][][] traducoes = new int[partes.size()][][];
+            int[] deslocamentos = new int[partes.size()];
+            long total = 0;
+            for (int p = 0; p < partes.size(); p++) {
+                Construtor parte = partes.get(p);
+                traducoes[p] = new int[][] {
+                        traduzir(parte.dicionarioUsuarios, usuarios),
+                        traduzir(parte.dicionarioSessoes, sessoes),
+                        traduzir(parte.dicionarioAcoes, acoes),
+                        traduzir(parte.dicionarioRecursos, recursos)
+                };
+                deslocamentos[p] = (int) total;
+                total += parte.linhas;
+                if (total > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Limite de linhas da tabela excedido");
+                }
+            }
+            int linhas = (int) total;
+            long[] timestamps = new long[linhas];
+            byte[] severidades = new byte[linhas];
+            long[] bytes = new long[linhas];
+            int[] colUsuarios = new int[linhas];
+            int[] colSessoes = new int[linhas];
+            int[] colAcoes = new int[linhas];
+            int[] colRecursos = new int[linhas];
+            List<ForkJoinTask<?>> copias = new ArrayList<>(partes.size());
+            for (int indice = 0; indice < partes.size(); indice++) {
+                int p = indice;
+                copias.add(pool.submit(() -> {
+                    Construtor parte = partes.get(p);
+                    int destino = deslocamentos[p];
+                    int n = parte.linhas;
+                    System.arraycopy(parte.timestamps, 0, timestamps, destino, n);
+                    System.arraycopy(parte.severidades, 0, severidades, destino, n);
+                    System.arraycopy(parte.bytes, 0, bytes, destino, n);
+                    int[][] t = traducoes[p];
+                    for (int i = 0; i < n; i++) {
+                        colUsuarios[destino + i] = t[0][parte.usuarios[i]];
+                        colSessoes[destino + i] = t[1][parte.sessoes[i]];
+                        colAcoes[destino + i] = t[2][parte.acoes[i]];
+                        colRecursos[destino + i] = t[3][parte.recursos[i]];
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> copia : copias) {
+                copia.join();
+            }
+            return new LogTable(linhas, timestamps, severidades, bytes,
+                    colUsuarios, colSessoes, colAcoes, colRecursos,
+                    usuarios, sessoes, acoes, recursos);
+        }
+
+        private static int[] traduzir(StringDictionary local, StringDictionary global) {
+            int[] traducao = new int[local.tamanho()];
+            for (int c = 0; c < traducao.length; c++) {
+                traducao[c] = global.importar(local, c);
+            }
+            return traducao;
+        }
+
+        private void crescer() {
+            int capacidade = (int) Math.min((long) timestamps.length + (timestamps.length >> 1) + 16,
+                    Integer.MAX_VALUE - 8);
+            if (capacidade == timestamps.length) {
+                throw new IllegalStateException("Limite de linhas da tabela excedido");
+            }
+            timestamps = Arrays.copyOf(timestamps, capacidade);
+            severidades = Arrays.copyOf(severidades, capacidade);
+            bytes = Arrays.copyOf(bytes, capacidade);
+            usuarios = Arrays.copyOf(usuarios, capacidade);
+            sessoes = Arrays.copyOf(sessoes, capacidade);
+            acoes = Arrays.copyOf(acoes, capacidade);
+            recursos = Arrays.copyOf(recursos, capacidade);
+        }
+
+        /** Remove a folga dos vetores quando ela passa de 1/8 da capacidade. */
+        private long[] ajustar(long[] coluna) {
+            return coluna.length - linhas > coluna.length >> 3 ? Arrays.copyOf(coluna, linhas) : coluna;
+        }
+
+        private int[] ajustar(int[] coluna) {
+            return coluna.length - linhas > coluna.length >> 3 ? Arrays.copyOf(coluna, linhas) : coluna;
+        }
+
+        private byte[] ajustar(byte[] coluna) {
+            return coluna.length - linhas > coluna.length >> 3 ? Arrays.copyOf(coluna, linhas) : coluna;
+        }
+    }
+}
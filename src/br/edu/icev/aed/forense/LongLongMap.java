@@ -0,0 +1,135 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.LongLongHashMap;
+
+import java.util.*;
+
+/**
+ * Visão {@code Map<Long, Long>} sobre um {@link LongLongHashMap}, sem
+ * objetos por entrada, para compatibilidade com
+ * {@link AnaliseForenseAvancada#encontrarPicosTransferencia}. Quem quiser
+ * evitar boxing pode usar {@link #obter(long, long)}, {@link #contem(long)}
+ * e {@link #paraCada}. Para quem o recebe o mapa é somente leitura: os
+ * métodos de alteração de {@link Map} lançam
+ * {@link UnsupportedOperationException}.
+ *
+ * Não é thread-safe enquanto é preenchido; depois disso pode ser lido por
+ * várias threads.
+ */
+public final class LongLongMap extends AbstractMap<Long, Long> {
+
+    private final LongLongHashMap mapa;
+    private Set<Entry<Long, Long>> entradas;
+
+    LongLongMap() {
+        this(new LongLongHashMap());
+    }
+
+    /**
+     * @param capacidadeEsperada Quantidade de entradas prevista
+     */
+    LongLongMap(int capacidadeEsperada) {
+        this(new LongLongHashMap(capacidadeEsperada));
+    }
+
+    private LongLongMap(LongLongHashMap mapa) {
+        this.mapa = mapa;
+    }
+
+    /**
+     * Associa o valor à chave, substituindo o anterior.
+     */
+    void colocar(long chave, long valor) {
+        mapa.colocar(chave, valor);
+    }
+
+    /**
+     * Cópia independente, que pode continuar a ser preenchida.
+     */
+    LongLongMap copia() {
+        return new LongLongMap(mapa.copia());
+    }
+
+    /**
+     * @return O valor da chave, ou {@code padrao} se ela não existir
+     */
+    public long obter(long chave, long padrao) {
+        return mapa.obter(chave, padrao);
+    }
+
+    public boolean contem(long chave) {
+        return mapa.contem(chave);
+    }
+
+    /**
+     * Percorre as entradas sem criar objetos, em ordem não especificada.
+     */
+    public void paraCada(LongLongHashMap.ConsumidorPar consumidor) {
+        mapa.paraCada(consumidor);
+    }
+
+    /**
+     * Estimativa de memória ocupada, em bytes.
+     */
+    public long bytesEstimados() {
+        return 16 + mapa.bytesEstimados();
+    }
+
+    @Override
+    public int size() {
+        return mapa.tamanho();
+    }
+
+    @Override
+    public boolean containsKey(Object chave) {
+        return chave instanceof Long && mapa.contem((Long) chave);
+    }
+
+    @Override
+    public Long get(Object chave) {
+        if (!(chave instanceof Long)) {
+            return null;
+        }
+        long k = (Long) chave;
+        return mapa.contem(k) ? mapa.obter(k, 0) : null;
+    }
+
+    @Override
+    public Set<Entry<Long, Long>> entrySet() {
+        if (entradas == null) {
+            entradas = new AbstractSet<Entry<Long, Long>>() {
+                @Override
+                public Iterator<Entry<Long, Long>> iterator() {
+                    return new Iterador();
+                }
+
+                @Override
+                public int size() {
+                    return mapa.tamanho();
+                }
+            };
+        }
+        return entradas;
+    }
+
+    private final class Iterador implements Iterator<Entry<Long, Long>> {
+
+        private final LongLongHashMap.Cursor cursor = mapa.cursor();
+        private boolean temProximo = cursor.proximo();
+
+        @Override
+        public boolean hasNext() {
+            return temProximo;
+        }
+
+        @Override
+        public Entry<Long, Long> next() {
+            if (!temProximo) {
+                throw new NoSuchElementException();
+            }
+            Entry<Long, Long> entrada = new SimpleImmutableEntry<>(cursor.chave(), cursor.valor());
+            temProximo = cursor.proximo();
+            return entrada;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package br.edu.icev.aed.forense;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache de modelos já lidos, indexado pelo caminho do arquivo.
+ *
+ * Um modelo é reaproveitado enquanto o tamanho e a data de modificação do
+ * arquivo não mudarem. A soma das estimativas de memória dos modelos fica
+ * limitada a um orçamento; quando ele é excedido, os modelos usados há mais
+ * tempo são descartados primeiro (LRU). Modelos que crescem depois de
+ * guardados (estruturas calculadas sob demanda) são medidos de novo, e o
+ * orçamento é verificado outra vez.
+ *
+ * Todos os métodos são thread-safe. A leitura de um arquivo acontece fora do
+ * lock, de modo que arquivos diferentes podem ser carregados em paralelo;
+ * pedidos simultâneos do mesmo arquivo aguardam uma única leitura em
+ * andamento em vez de cada um iniciar a sua.
+ */
+final class ModeloCache {
+
+    /** Propriedade de sistema com o orçamento padrão, em bytes. */
+    static final String PROPRIEDADE_ORCAMENTO = "aed.forense.cache.bytes";
+
+    private static final ModeloCache COMPARTILHADO = new ModeloCache(orcamentoPadrao());
+
+    private final long orcamentoBytes;
+    private final LinkedHashMap<Path, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Path, Leitura> emAndamento = new HashMap<>();
+    private long bytesEmUso;
+
+    /**
+     * @param orcamentoBytes Memória máxima ocupada pelos modelos em cache; 0 desativa o cache
+     */
+    ModeloCache(long orcamentoBytes) {
+        if (orcamentoBytes < 0) {
+            throw new IllegalArgumentException("Orçamento negativo: " + orcamentoBytes);
+        }
+        this.orcamentoBytes = orcamentoBytes;
+    }
+
+    /**
+     * Cache único do processo, com orçamento definido por
+     * {@value #PROPRIEDADE_ORCAMENTO} ou, na falta dela, 1/4 do heap máximo.
+     */
+    static ModeloCache compartilhado() {
+        return COMPARTILHADO;
+    }
+
+    /**
+     * Retorna o modelo do arquivo, lendo-o apenas se não estiver em cache ou
+     * se o arquivo tiver mudado desde a última leitura.
+     *
+     * @param caminho Caminho do CSV de logs
+     * @return Modelo correspondente ao conteúdo atual do arquivo
+     * @throws IOException Se houver erro ao ler o arquivo
+     */
+    ModeloForense obter(Path caminho) throws IOException {
+        Path arquivo = caminho.toAbsolutePath().normalize();
+        BasicFileAttributes atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+        long tamanho = atributos.size();
+        long modificadoEm = atributos.lastModifiedTime().toMillis();
+
+        Leitura leitura;
+        boolean leitor = false;
+        synchronized (this) {
+            Entrada entrada = entradas.get(arquivo);
+            if (entrada != null && entrada.tamanho == tamanho && entrada.modificadoEm == modificadoEm) {
+                return entrada.modelo;
+            }
+            leitura = emAndamento.get(arquivo);
+            if (leitura == null || leitura.tamanho != tamanho || leitura.modificadoEm != modificadoEm) {
+                leitura = new Leitura(tamanho, modificadoEm);
+                emAndamento.put(arquivo, leitura);
+                leitor = true;
+            }
+        }
+
+        if (!leitor) {
+            return aguardar(leitura);
+        }
+        try {
+            ModeloForense modelo = ModeloForense.carregar(arquivo);
+            guardar(arquivo, new Entrada(tamanho, modificadoEm, modelo));
+            leitura.modelo.complete(modelo);
+            return modelo;
+        } catch (IOException | RuntimeException | Error e) {
+            leitura.modelo.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                emAndamento.remove(arquivo, leitura);
+            }
+        }
+    }
+
+    /** Espera a leitura iniciada por outra thread e repassa o erro dela, se houver. */
+    private static ModeloForense aguardar(Leitura leitura) throws IOException {
+        boolean interrompida = false;
+        try {
+            while (true) {
+                try {
+                    return leitura.modelo.get();
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException) {
+                throw new IOException(causa.getMessage(), causa);
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw (Error) causa;
+        } finally {
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    synchronized long bytesEmUso() {
+        return bytesEmUso;
+    }
+
+    synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    synchronized void limpar() {
+        for (Entrada entrada : entradas.values()) {
+            entrada.guardada = false;
+        }
+        entradas.clear();
+        bytesEmUso = 0;
+    }
+
+    private synchronized void guardar(Path arquivo, Entrada nova) {
+        Entrada anterior = entradas.remove(arquivo);
+        if (anterior != null) {
+            anterior.guardada = false;
+            bytesEmUso -= anterior.bytes;
+        }
+        if (nova.bytes > orcamentoBytes) {
+            return;
+        }
+        entradas.put(arquivo, nova);
+        nova.guardada = true;
+        nova.modelo.aoCrescer(() -> remedir(nova));
+        bytesEmUso += nova.bytes;
+        descartarExcedente();
+    }
+
+    /**
+     * Atualiza a estimativa de um modelo ainda em cache que cresceu depois de
+     * guardado, sem mudar a ordem de uso.
+     */
+    private synchronized void remedir(Entrada entrada) {
+        if (!entrada.guardada) {
+            return;
+        }
+        long bytes = entrada.modelo.bytesEstimados();
+        bytesEmUso += bytes - entrada.bytes;
+        entrada.bytes = bytes;
+        descartarExcedente();
+    }
+
+    /** Descarta os modelos usados há mais tempo até voltar ao orçamento. */
+    private void descartarExcedente() {
+        Iterator<Map.Entry<Path, Entrada>> maisAntigas = entradas.entrySet().iterator();
+        while (bytesEmUso > orcamentoBytes && maisAntigas.hasNext()) {
+            Entrada descartada = maisAntigas.next().getValue();
+            maisAntigas.remove();
+            descartada.guardada = false;
+            bytesEmUso -= descartada.bytes;
+        }
+    }
+
+    private static long orcamentoPadrao() {
+        String configurado = System.getProperty(PROPRIEDADE_ORCAMENTO);
+        if (configurado != null) {
+            try {
+                return Math.max(0, Long.parseLong(configurado.trim()));
+            } catch (NumberFormatException e) {
+                // valor inválido: usa o padrão
+            }
+        }
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    private static final class Entrada {
+        private final long tamanho;
+        private final long modificadoEm;
+        private final ModeloForense modelo;
+        // Protegidos pelo lock do cache
+        private long bytes;
+        private boolean guardada;
+
+        Entrada(long tamanho, long modificadoEm, ModeloForense modelo) {
+            this.tamanho = tamanho;
+            this.modificadoEm = modificadoEm;
+            this.modelo = modelo;
+            this.bytes = modelo.bytesEstimados();
+        }
+    }
+
+    /** Leitura de um arquivo em andamento, compartilhada pelos pedidos simultâneos. */
+    private static final class Leitura {
+        private final long tamanho;
+        private final long modificadoEm;
+        private final CompletableFuture<ModeloForense> modelo = new CompletableFuture<>();
+
+        Leitura(long tamanho, long modificadoEm) {
+            this.tamanho = tamanho;
+            this.modificadoEm = modificadoEm;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.IntArrayStack;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Modelo em memória de um arquivo de logs, construído em uma única leitura.
+ *
+ * Os eventos ficam em uma {@link LogTable} colunar; as estruturas usadas
+ * pelos 5 desafios que dependem do arquivo inteiro (sessões inválidas, picos
+ * de transferência e grafo de recursos) são derivadas dela uma única vez,
+ * assim como os índices de linhas por sessão e por usuário usados nas linhas
+ * do tempo. As demais consultas percorrem apenas colunas primitivas.
+ *
+ * Consultas restritas a um intervalo de tempo usam um modelo derivado só
+ * das linhas do intervalo (ver {@link #janela(long, long)}); se a tabela está
+ * em ordem de timestamp, essas linhas são localizadas por busca binária.
+ *
+ * Instâncias podem ser compartilhadas entre threads: o conteúdo é imutável,
+ * e o índice de alcançabilidade e a última janela, calculados sob demanda,
+ * são publicados com sincronização ou por campos voláteis. Eles entram em
+ * {@link #bytesEstimados()}, e quem guarda o modelo é avisado quando são
+ * criados (ver {@link #aoCrescer(Runnable)}).
+ */
+final class ModeloForense {
+
+    /** Mínimo de linhas por faixa ao priorizar alertas em paralelo. */
+    private static final int LINHAS_POR_PARTE = 1 << 20;
+
+    private final LogTable tabela;
+    private final Set<String> sessoesInvalidas;
+    private final LongLongMap picosTransferencia;
+    private final ResourceGraph grafoRecursos;
+    private final ResourceIndex indiceRecursos;
+    private final PostingIndex linhasPorSessao;
+    private final StringDictionary usuariosSemCaixa = new StringDictionary();
+    /** Código em {@link #usuariosSemCaixa} de cada código do dicionário de usuários. */
+    private final int[] usuarioSemCaixa;
+    private final PostingIndex linhasPorUsuario;
+
+    // Índice de alcançabilidade, construído na primeira consulta que o usa
+    private volatile ReachabilityIndex indiceAlcance;
+    private boolean indiceAlcanceCalculado;
+    // Modelo do último intervalo consultado, reaproveitado por consultas seguidas à mesma janela
+    private volatile Janela ultimaJanela;
+    private volatile Runnable aoCrescer = () -> { };
+
+    ModeloForense(LogTable tabela) {
+        this.tabela = tabela;
+        this.linhasPorSessao = PostingIndex.construir(tabela.colunaSessoes(), tabela.linhas(),
+                tabela.dicionarioSessoes().tamanho());
+        StringDictionary usuarios = tabela.dicionarioUsuarios();
+        this.usuarioSemCaixa = new int[usuarios.tamanho()];
+        for (int u = 0; u < usuarioSemCaixa.length; u++) {
+            usuarioSemCaixa[u] = usuariosSemCaixa.codificar(usuarios.valor(u).toLowerCase(Locale.ROOT));
+        }
+        this.linhasPorUsuario = PostingIndex.construir(tabela.colunaUsuarios(), tabela.linhas(),
+                usuarioSemCaixa, usuariosSemCaixa.tamanho());
+        this.sessoesInvalidas = Collections.unmodifiableSet(calcularSessoesInvalidas(tabela));
+        this.picosTransferencia = calcularPicos(tabela);
+        this.grafoRecursos = ResourceGraph.construir(tabela);
+        this.indiceRecursos = ResourceIndex.construir(tabela);
+    }
+
+    /**
+     * Lê o arquivo uma única vez e deriva todas as estruturas de análise.
+     *
+     * @param arquivo Caminho do CSV de logs
+     * @return Modelo pronto para consulta
+     * @throws IOException Se houver erro de leitura ou linha malformada
+     */
+    static ModeloForense carregar(Path arquivo) throws IOException {
+        return new ModeloForense(LogTable.carregar(arquivo));
+    }
+
+    LogTable tabela() {
+        return tabela;
+    }
+
+    /**
+     * Estimativa de memória ocupada pela tabela e pelas estruturas derivadas,
+     * inclusive as calculadas sob demanda até agora, em bytes.
+     */
+    long bytesEstimados() {
+        long total = tabela.bytesEstimados() + 64L * sessoesInvalidas.size() + picosTransferencia.bytesEstimados()
+                + linhasPorSessao.bytesEstimados() + linhasPorUsuario.bytesEstimados()
+                + usuariosSemCaixa.bytesEstimados() + indiceRecursos.bytesEstimados();
+        ReachabilityIndex indice = indiceAlcance;
+        if (indice != null) {
+            total += indice.bytesEstimados();
+        }
+        Janela janela = ultimaJanela;
+        if (janela != null) {
+            total += janela.modelo.bytesEstimados();
+        }
+        return total + grafoRecursos.bytesEstimados();
+    }
+
+    /**
+     * Define o aviso executado depois que uma estrutura calculada sob demanda
+     * muda {@link #bytesEstimados()}, fora dos locks do modelo.
+     */
+    void aoCrescer(Runnable aviso) {
+        this.aoCrescer = Objects.requireNonNull(aviso);
+    }
+
+    Set<String> sessoesInvalidas() {
+        return sessoesInvalidas;
+    }
+
+    /**
+     * Busca a linha do tempo pela sessão; se não existir uma sessão com esse
+     * id, interpreta o parâmetro como usuário (sem diferenciar maiúsculas).
+     * Custa O(eventos da sessão ou do usuário), pelos índices de linhas.
+     */
+    List<String> linhaTempo(String sessionId) {
+        if (sessionId == null) {
+            return new ArrayList<>();
+        }
+        int sessao = tabela.dicionarioSessoes().codigo(sessionId);
+        if (sessao >= 0) {
+            return acoes(linhasPorSessao, sessao);
+        }
+        int usuario = usuariosSemCaixa.codigo(sessionId.toLowerCase(Locale.ROOT));
+        return usuario >= 0 ? acoes(linhasPorUsuario, usuario) : new ArrayList<>();
+    }
+
+    private List<String> acoes(PostingIndex indice, int chave) {
+        StringDictionary dicionarioAcoes = tabela.dicionarioAcoes();
+        List<String> acoes = new ArrayList<>(indice.tamanho(chave));
+        for (int p = indice.inicio(chave); p < indice.fim(chave); p++) {
+            acoes.add(dicionarioAcoes.valor(tabela.acao(indice.linha(p))));
+        }
+        return acoes;
+    }
+
+    /**
+     * Os N eventos de maior prioridade, selecionados por {@link TopAlertEngine}
+     * sobre as colunas; só os vencedores viram {@link Alerta}. Tabelas grandes
+     * são divididas em faixas de linhas avaliadas em paralelo.
+     */
+    List<Alerta> alertasPrioritarios(int n) {
+        List<Alerta> resultado = new ArrayList<>();
+        if (n <= 0) {
+            return resultado;
+        }
+        TopAlertEngine selecao;
+        int partes = Math.min(ForkJoinPool.getCommonPoolParallelism(), tabela.linhas() / LINHAS_POR_PARTE);
+        if (partes > 1) {
+            List<ForkJoinTask<TopAlertEngine>> tarefas = new ArrayList<>(partes);
+            for (int p = 0; p < partes; p++) {
+                int de = (int) ((long) tabela.linhas() * p / partes);
+                int ate = (int) ((long) tabela.linhas() * (p + 1) / partes);
+                tarefas.add(ForkJoinPool.commonPool().submit(() -> selecionar(n, de, ate)));
+            }
+            selecao = tarefas.get(0).join();
+            for (int p = 1; p < partes; p++) {
+                selecao.mesclar(tarefas.get(p).join());
+            }
+        } else {
+            selecao = selecionar(n, 0, tabela.linhas());
+        }
+        for (long linha : selecao.sequencias()) {
+            resultado.add(tabela.alerta((int) linha));
+        }
+        return resultado;
+    }
+
+    private TopAlertEngine selecionar(int n, int de, int ate) {
+        TopAlertEngine selecao = new TopAlertEngine(n);
+        byte[] severidades = tabela.colunaSeveridades();
+        long[] timestamps = tabela.colunaTimestamps();
+        long[] bytes = tabela.colunaBytes();
+        for (int i = de; i < ate; i++) {
+            selecao.oferecer(severidades[i], timestamps[i], bytes[i], i);
+        }
+        return selecao;
+    }
+
+    LongLongMap picosTransferencia() {
+        return picosTransferencia;
+    }
+
+    /**
+     * Modelo com apenas os eventos de timestamp entre {@code inicio} e
+     * {@code fim} (inclusive), sobre o qual os 5 desafios são respondidos
+     * como se o arquivo tivesse só essas linhas. Custa O(log n + k) para k
+     * eventos no intervalo se a tabela está ordenada por tempo, ou uma
+     * varredura da coluna de timestamps caso contrário. O último modelo
+     * criado é reaproveitado se o intervalo se repetir; ele conta em
+     * {@link #bytesEstimados()}, e o aviso de {@link #aoCrescer} é executado
+     * quando ele é trocado ou cresce.
+     */
+    ModeloForense janela(long inicio, long fim) {
+        Janela janela = ultimaJanela;
+        if (janela != null && janela.inicio == inicio && janela.fim == fim) {
+            return janela.modelo;
+        }
+        ModeloForense modelo;
+        if (tabela.ordenadaPorTempo()) {
+            int de = tabela.primeiraLinhaDesde(inicio);
+            modelo = new ModeloForense(tabela.selecionar(de, Math.max(de, tabela.primeiraLinhaApos(fim))));
+        } else {
+            modelo = new ModeloForense(tabela.selecionar(linhasForaDeOrdem(inicio, fim, -1, -1, -1)));
+        }
+        modelo.aoCrescer(() -> aoCrescer.run());
+        ultimaJanela = new Janela(inicio, fim, modelo);
+        aoCrescer.run();
+        return modelo;
+    }
+
+    /**
+     * Eventos com timestamp entre {@code inicio} e {@code fim} (inclusive),
+     * na ordem do arquivo. Os filtros nulos são ignorados; o usuário é
+     * comparado sem diferenciar maiúsculas, e sessão e ação exatamente. Só
+     * a faixa de linhas do intervalo é lida se a tabela está ordenada por
+     * tempo, e os filtros comparam códigos de dicionário.
+     */
+    List<Alerta> eventosEntre(long inicio, long fim, String usuario, String sessao, String acao) {
+        List<Alerta> eventos = new ArrayList<>();
+        int codigoUsuario = usuario == null ? -1 : usuariosSemCaixa.codigo(usuario.toLowerCase(Locale.ROOT));
+        int codigoSessao = sessao == null ? -1 : tabela.dicionarioSessoes().codigo(sessao);
+        int codigoAcao = acao == null ? -1 : tabela.dicionarioAcoes().codigo(acao);
+        if ((usuario != null && codigoUsuario < 0) || (sessao != null && codigoSessao < 0)
+                || (acao != null && codigoAcao < 0)) {
+            return eventos;
+        }
+        if (tabela.ordenadaPorTempo()) {
+            int de = tabela.primeiraLinhaDesde(inicio);
+            int ate = Math.max(de, tabela.primeiraLinhaApos(fim));
+            int[] usuarios = tabela.colunaUsuarios();
+            int[] sessoes = tabela.colunaSessoes();
+            int[] acoes = tabela.colunaAcoes();
+            for (int i = de; i < ate; i++) {
+                if ((codigoUsuario < 0 || usuarioSemCaixa[usuarios[i]] == codigoUsuario)
+                        && (codigoSessao < 0 || sessoes[i] == codigoSessao)
+                        && (codigoAcao < 0 || acoes[i] == codigoAcao)) {
+                    eventos.add(tabela.alerta(i));
+                }
+            }
+            return eventos;
+        }
+        for (int linha : linhasForaDeOrdem(inicio, fim, codigoUsuario, codigoSessao, codigoAcao)) {
+            eventos.add(tabela.alerta(linha));
+        }
+        return eventos;
+    }
+
+    /**
+     * Varredura das linhas no intervalo para tabelas fora de ordem; códigos
+     * negativos não filtram.
+     */
+    private int[] linhasForaDeOrdem(long inicio, long fim, int codigoUsuario, int codigoSessao, int codigoAcao) {
+        long[] timestamps = tabela.colunaTimestamps();
+        int[] usuarios = tabela.colunaUsuarios();
+        int[] sessoes = tabela.colunaSessoes();
+        int[] acoes = tabela.colunaAcoes();
+        IntArrayStack linhas = new IntArrayStack();
+        for (int i = 0; i < tabela.linhas(); i++) {
+            long t = timestamps[i];
+            if (t >= inicio && t <= fim
+                    && (codigoUsuario < 0 || usuarioSemCaixa[usuarios[i]] == codigoUsuario)
+                    && (codigoSessao < 0 || sessoes[i] == codigoSessao)
+                    && (codigoAcao < 0 || acoes[i] == codigoAcao)) {
+                linhas.empilhar(i);
+            }
+        }
+        return linhas.paraVetor();
+    }
+
+    /**
+     * Caminho mais curto entre recursos por BFS bidirecional, com o mesmo
+     * resultado da BFS a partir da origem. Os nomes dos recursos não
+     * diferenciam maiúsculas (ver {@link ResourceIndex#codigo(String)}).
+     */
+    Optional<List<String>> caminhoMaisCurto(String origem, String alvo) {
+        int de = indiceRecursos.codigo(origem);
+        int para = indiceRecursos.codigo(alvo);
+        if (de < 0 || para < 0) {
+            return Optional.empty();
+        }
+        ReachabilityIndex indice = indiceAlcance;
+        if (indice != null && !indice.alcanca(de, para)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(nomes(grafoRecursos.caminhoMaisCurtoBidirecional(de, para)));
+    }
+
+    /**
+     * Se existe caminho entre os recursos, sem reconstruí-lo. Usa o
+     * {@link ReachabilityIndex} (construído na primeira chamada) ou, se ele
+     * não couber no orçamento de memória, uma busca bidirecional.
+     */
+    boolean alcanca(String origem, String alvo) {
+        int de = indiceRecursos.codigo(origem);
+        int para = indiceRecursos.codigo(alvo);
+        if (de < 0 || para < 0) {
+            return false;
+        }
+        ReachabilityIndex indice = indiceAlcance();
+        if (indice != null) {
+            return indice.alcanca(de, para);
+        }
+        return grafoRecursos.caminhoMaisCurtoBidirecional(de, para) != null;
+    }
+
+    private ReachabilityIndex indiceAlcance() {
+        ReachabilityIndex indice = indiceAlcance;
+        if (indice != null) {
+            return indice;
+        }
+        boolean construido = false;
+        synchronized (this) {
+            if (!indiceAlcanceCalculado) {
+                indiceAlcance = ReachabilityIndex.construir(grafoRecursos);
+                indiceAlcanceCalculado = true;
+                construido = indiceAlcance != null;
+            }
+            indice = indiceAlcance;
+        }
+        if (construido) {
+            aoCrescer.run();
+        }
+        return indice;
+    }
+
+    /**
+     * Recursos cujo nome começa com o prefixo, sem diferenciar maiúsculas,
+     * em ordem alfabética.
+     */
+    List<String> recursosComPrefixo(String prefixo) {
+        List<String> nomes = new ArrayList<>();
+        for (int r : indiceRecursos.comPrefixo(prefixo)) {
+            nomes.add(tabela.dicionarioRecursos().valor(r));
+        }
+        return nomes;
+    }
+
+    /**
+     * Eventos, na ordem do arquivo, sobre os recursos que casam com o
+     * padrão: um nome exato ou um prefixo terminado em {@code *} ou
+     * {@code **} (como {@code /etc/**}), sem diferenciar maiúsculas.
+     */
+    List<Alerta> eventosPorRecurso(String padrao) {
+        int[] codigos;
+        if (padrao.endsWith("*")) {
+            int fim = padrao.length();
+            while (fim > 0 && padrao.charAt(fim - 1) == '*') {
+                fim--;
+            }
+            codigos = indiceRecursos.comPrefixo(padrao.substring(0, fim));
+        } else {
+            codigos = indiceRecursos.iguaisSemCaixa(padrao);
+        }
+        int[] linhas = indiceRecursos.linhas(codigos);
+        List<Alerta> eventos = new ArrayList<>(linhas.length);
+        for (int linha : linhas) {
+            eventos.add(tabela.alerta(linha));
+        }
+        return eventos;
+    }
+
+    /**
+     * Caminho mais curto de cada origem a cada alvo, em ordem de origem e
+     * depois de alvo. Cada origem é resolvida por uma única BFS, e as origens
+     * são distribuídas entre as threads do pool comum.
+     */
+    List<CaminhoContaminacao> caminhosEmLote(List<String> origens, List<String> alvos) {
+        int[] codigosAlvos = codigos(alvos);
+        int[] alvosConhecidos = conhecidos(codigosAlvos);
+        List<ForkJoinTask<List<CaminhoContaminacao>>> tarefas = new ArrayList<>(origens.size());
+        for (String origem : origens) {
+            tarefas.add(ForkJoinPool.commonPool().submit(() -> {
+                int de = indiceRecursos.codigo(origem);
+                int[][] caminhos = de < 0 ? new int[alvosConhecidos.length][]
+                        : grafoRecursos.caminhosMaisCurtos(de, alvosConhecidos);
+                List<CaminhoContaminacao> linha = new ArrayList<>(alvos.size());
+                int conhecido = 0;
+                for (int j = 0; j < alvos.size(); j++) {
+                    int[] caminho = codigosAlvos[j] < 0 ? null : caminhos[conhecido++];
+                    linha.add(new CaminhoContaminacao(origem, alvos.get(j), nomes(caminho)));
+                }
+                return linha;
+            }));
+        }
+        List<CaminhoContaminacao> resultado = new ArrayList<>(origens.size() * alvos.size());
+        for (ForkJoinTask<List<CaminhoContaminacao>> tarefa : tarefas) {
+            resultado.addAll(tarefa.join());
+        }
+        return resultado;
+    }
+
+    /**
+     * Para cada alvo, as origens (na ordem recebida) que o alcançam, por uma
+     * BFS no grafo reverso a partir de cada alvo, em paralelo.
+     */
+    Map<String, List<String>> origensQueAlcancam(List<String> origens, List<String> alvos) {
+        int[] codigosOrigens = codigos(origens);
+        int[] origensConhecidas = conhecidos(codigosOrigens);
+        List<ForkJoinTask<List<String>>> tarefas = new ArrayList<>(alvos.size());
+        for (String alvo : alvos) {
+            tarefas.add(ForkJoinPool.commonPool().submit(() -> {
+                List<String> alcancam = new ArrayList<>();
+                int para = indiceRecursos.codigo(alvo);
+                if (para >= 0) {
+                    boolean[] alcanca = grafoRecursos.origensQueAlcancam(para, origensConhecidas);
+                    int conhecida = 0;
+                    for (int i = 0; i < origens.size(); i++) {
+                        if (codigosOrigens[i] >= 0 && alcanca[conhecida++]) {
+                            alcancam.add(origens.get(i));
+                        }
+                    }
+                }
+                return alcancam;
+            }));
+        }
+        Map<String, List<String>> resultado = new LinkedHashMap<>();
+        for (int j = 0; j < alvos.size(); j++) {
+            resultado.put(alvos.get(j), tarefas.get(j).join());
+        }
+        return resultado;
+    }
+
+    /** Código de cada recurso, ou -1 para os que não aparecem no arquivo (sem diferenciar maiúsculas). */
+    private int[] codigos(List<String> nomes) {
+        int[] codigos = new int[nomes.size()];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = indiceRecursos.codigo(nomes.get(i));
+        }
+        return codigos;
+    }
+
+    private static int[] conhecidos(int[] codigos) {
+        return Arrays.stream(codigos).filter(c -> c >= 0).toArray();
+    }
+
+    private List<String> nomes(int[] caminho) {
+        if (caminho == null) {
+            return null;
+        }
+        List<String> nomes = new ArrayList<>(caminho.length);
+        for (int r : caminho) {
+            nomes.add(tabela.dicionarioRecursos().valor(r));
+        }
+        return nomes;
+    }
+
+    private static Set<String> calcularSessoesInvalidas(LogTable tabela) {
+        StringDictionary acoes = tabela.dicionarioAcoes();
+        int login = acoes.codigo("LOGIN");
+        int logout = acoes.codigo("LOGOUT");
+        int[] loginsAbertos = new int[tabela.dicionarioSessoes().tamanho()];
+        boolean[] invalida = new boolean[loginsAbertos.length];
+        Set<String> sessoes = new HashSet<>();
+        for (int i = 0; i < tabela.linhas(); i++) {
+            int acao = tabela.acao(i);
+            int sessao = tabela.sessao(i);
+            if (acao == login) {
+                if (loginsAbertos[sessao]++ > 0) {
+                    invalida[sessao] = true;
+                }
+            } else if (acao == logout) {
+                if (loginsAbertos[sessao] == 0) {
+                    invalida[sessao] = true;
+                } else {
+                    loginsAbertos[sessao]--;
+                }
+            }
+        }
+        for (int s = 0; s < invalida.length; s++) {
+            if (invalida[s]) {
+                sessoes.add(tabela.dicionarioSessoes().valor(s));
+            }
+        }
+        return sessoes;
+    }
+
+    /**
+     * Próximo elemento maior com pilha monotônica de linhas, na ordem do
+     * arquivo, direto sobre as colunas de bytes e timestamps.
+     */
+    private static LongLongMap calcularPicos(LogTable tabela) {
+        long[] timestamps = tabela.colunaTimestamps();
+        long[] bytes = tabela.colunaBytes();
+        LongLongMap picos = new LongLongMap();
+        IntArrayStack pilha = new IntArrayStack();
+        for (int i = 0; i < tabela.linhas(); i++) {
+            long atual = bytes[i];
+            while (!pilha.vazia() && bytes[pilha.topo()] < atual) {
+                picos.colocar(timestamps[pilha.desempilhar()], timestamps[i]);
+            }
+            pilha.empilhar(i);
+        }
+        return picos;
+    }
+
+    private static final class Janela {
+        final long inicio;
+        final long fim;
+        final ModeloForense modelo;
+
+        Janela(long inicio, long fim, ModeloForense modelo) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.modelo = modelo;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package br.edu.icev.aed.forense;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Leitura paralela de um CSV de logs em um {@link ForkJoinPool}.
+ *
+ * O arquivo é dividido em faixas de bytes que começam e terminam em quebras
+ * de linha. Cada faixa é lida por um {@link LogReader} próprio para uma
+ * tabela parcial com dicionários locais; no fim as partes são concatenadas
+ * na ordem do arquivo, de modo que o resultado é idêntico ao da leitura
+ * sequencial (mesmas linhas, mesma ordem e mesmos códigos de dicionário).
+ */
+final class ParallelLogLoader {
+
+    /** Abaixo deste tamanho a leitura sequencial é mais rápida. */
+    static final long TAMANHO_MINIMO = 32L << 20;
+
+    private static final long TAMANHO_MINIMO_PARTE = 4L << 20;
+    private static final int PARTES_POR_THREAD = 4;
+
+    private ParallelLogLoader() {
+    }
+
+    /**
+     * @param arquivo Caminho do CSV de logs
+     * @param pool Pool onde as partes são lidas
+     * @return Tabela com todas as linhas, na ordem do arquivo
+     * @throws IOException Se houver erro de leitura ou linha malformada
+     */
+    static LogTable carregar(Path arquivo, ForkJoinPool pool) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            int partes = (int) Math.max(1, Math.min((long) pool.getParallelism() * PARTES_POR_THREAD,
+                    tamanho / TAMANHO_MINIMO_PARTE));
+            long[] limites = dividir(canal, tamanho, partes);
+
+            List<ForkJoinTask<LogTable.Construtor>> tarefas = new ArrayList<>(limites.length - 1);
+            for (int i = 0; i + 1 < limites.length; i++) {
+                long inicio = limites[i];
+                long fim = limites[i + 1];
+                tarefas.add(pool.submit(() -> lerParte(canal, inicio, fim)));
+            }
+            List<LogTable.Construtor> lidas = new ArrayList<>(tarefas.size());
+            for (ForkJoinTask<LogTable.Construtor> tarefa : tarefas) {
+                lidas.add(aguardar(tarefa, arquivo));
+            }
+            return LogTable.Construtor.unir(lidas, pool);
+        }
+    }
+
+    private static LogTable.Construtor lerParte(FileChannel canal, long inicio, long fim) throws IOException {
+        LogTable.Construtor parte = new LogTable.Construtor((fim - inicio) / LogTable.BYTES_POR_LINHA_ESTIMADOS);
+        try (LogReader leitor = LogReader.regiao(canal, inicio, fim)) {
+            while (leitor.proximo()) {
+                parte.adicionar(leitor);
+            }
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " (parte iniciada no byte " + inicio + ")", e);
+        }
+        return parte;
+    }
+
+    /**
+     * Calcula {@code partes + 1} limites (ou menos, se partes ficarem vazias),
+     * cada um logo após um '\n'.
+     */
+    private static long[] dividir(FileChannel canal, long tamanho, int partes) throws IOException {
+        long[] limites = new long[partes + 1];
+        int quantidade = 1;
+        ByteBuffer bloco = ByteBuffer.allocate(64 * 1024);
+        for (int i = 1; i < partes; i++) {
+            long limite = proximaLinha(canal, tamanho, tamanho * i / partes, bloco);
+            if (limite > limites[quantidade - 1] && limite < tamanho) {
+                limites[quantidade++] = limite;
+            }
+        }
+        limites[quantidade++] = tamanho;
+        long[] ajustados = new long[quantidade];
+        System.arraycopy(limites, 0, ajustados, 0, quantidade);
+        return ajustados;
+    }
+
+    private static long proximaLinha(FileChannel canal, long tamanho, long de, ByteBuffer bloco) throws IOException {
+        long posicao = de;
+        while (posicao < tamanho) {
+            bloco.clear();
+            int lidos = canal.read(bloco, posicao);
+            if (lidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < lidos; i++) {
+                if (bloco.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
+    private static LogTable.Construtor aguardar(ForkJoinTask<LogTable.Construtor> tarefa, Path arquivo)
+            throws IOException {
+        try {
+            return tarefa.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Leitura de " + arquivo + " interrompida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException) {
+                throw new IOException(causa.getMessage() + " em " + arquivo, causa);
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new IOException("Falha ao ler " + arquivo, causa);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package br.edu.icev.aed.forense;
+
+/**
+ * Índice invertido de uma coluna de códigos: para cada chave, as linhas em
+ * que ela aparece, em ordem crescente.
+ *
+ * As listas ficam concatenadas em um único vetor ({@code linhas}), e
+ * {@code inicio[chave]} até {@code inicio[chave + 1]} delimita a lista de
+ * cada chave. A construção é uma ordenação por contagem em duas passadas
+ * sobre a coluna, sem objetos por linha.
+ *
+ * Imutável depois de construído.
+ */
+final class PostingIndex {
+
+    private final int[] inicio;
+    private final int[] linhas;
+
+    private PostingIndex(int[] inicio, int[] linhas) {
+        this.inicio = inicio;
+        this.linhas = linhas;
+    }
+
+    /**
+     * @param coluna Códigos de cada linha
+     * @param totalLinhas Quantidade de linhas válidas da coluna
+     * @param chaves Quantidade de chaves distintas (códigos de 0 a chaves - 1)
+     * @return Índice de cada código para as linhas em que aparece
+     */
+    static PostingIndex construir(int[] coluna, int totalLinhas, int chaves) {
+        return construir(coluna, totalLinhas, null, chaves);
+    }
+
+    /**
+     * Constrói o índice agrupando códigos: a chave de uma linha é
+     * {@code grupo[coluna[linha]]}.
+     *
+     * @param coluna Códigos de cada linha
+     * @param totalLinhas Quantidade de linhas válidas da coluna
+     * @param grupo Chave de cada código, ou null para usar o próprio código
+     * @param chaves Quantidade de chaves distintas
+     * @return Índice de cada chave para as linhas em que aparece
+     */
+    static PostingIndex construir(int[] coluna, int totalLinhas, int[] grupo, int chaves) {
+        int[] inicio = new int[chaves + 1];
+        for (int i = 0; i < totalLinhas; i++) {
+            int chave = grupo == null ? coluna[i] : grupo[coluna[i]];
+            inicio[chave + 1]++;
+        }
+        for (int c = 0; c < chaves; c++) {
+            inicio[c + 1] += inicio[c];
+        }
+        int[] proximo = new int[chaves];
+        System.arraycopy(inicio, 0, proximo, 0, chaves);
+        int[] linhas = new int[totalLinhas];
+        for (int i = 0; i < totalLinhas; i++) {
+            int chave = grupo == null ? coluna[i] : grupo[coluna[i]];
+            linhas[proximo[chave]++] = i;
+        }
+        return new PostingIndex(inicio, linhas);
+    }
+
+    /** Posição da primeira linha da chave. */
+    int inicio(int chave) {
+        return inicio[chave];
+    }
+
+    /** Posição seguinte à última linha da chave. */
+    int fim(int chave) {
+        return inicio[chave + 1];
+    }
+
+    /** Número da linha guardado na posição, entre {@link #inicio} e {@link #fim}. */
+    int linha(int posicao) {
+        return linhas[posicao];
+    }
+
+    int tamanho(int chave) {
+        return inicio[chave + 1] - inicio[chave];
+    }
+
+    /**
+     * Estimativa de memória ocupada, em bytes.
+     */
+    long bytesEstimados() {
+        return 32 + 4L * (inicio.length + linhas.length);
+    }
+}
@@ -0,0 +1,294 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.IntArrayStack;
+
+import java.util.Arrays;
+
+/**
+ * Índice de alcançabilidade do grafo de recursos: responde se existe algum
+ * caminho de um recurso a outro sem executar uma busca.
+ *
+ * Os componentes fortemente conexos são encontrados pelo algoritmo de Tarjan
+ * (iterativo, sem recursão) e numerados em ordem topológica reversa: uma
+ * aresta entre componentes diferentes sempre vai de um número maior para um
+ * menor. O fecho transitivo do grafo condensado é guardado por componente,
+ * como lista ordenada de componentes alcançáveis ou como bitset restrito à
+ * faixa de palavras ocupada, o que for menor.
+ *
+ * A construção desiste (retorna null) se o fecho passar do orçamento de
+ * memória ou se as uniões de fechos passarem do limite de trabalho (cada
+ * elemento de lista ou palavra de bitset copiado conta uma unidade), o que
+ * limita o tempo de construção em grafos com fechos grandes. Imutável e
+ * seguro para leitura por várias threads.
+ */
+final class ReachabilityIndex {
+
+    /** Propriedade de sistema com o orçamento de memória do índice, em bytes. */
+    static final String PROPRIEDADE_ORCAMENTO = "aed.forense.alcance.bytes";
+
+    private static final long ORCAMENTO_PADRAO = 64L << 20;
+    /** Limite padrão de trabalho da construção, em unidades de união. */
+    private static final long TRABALHO_PADRAO = 1L << 27;
+    private static final int NAO_VISITADO = -1;
+
+    private final int[] componente;
+    // Para cada componente, o fecho é alcancaveis[c] (lista ordenada) ou
+    // palavras[c] a partir da palavra primeiraPalavra[c] (bitset)
+    private final int[][] alcancaveis;
+    private final long[][] palavras;
+    private final int[] primeiraPalavra;
+    private final long bytesEstimados;
+
+    private ReachabilityIndex(int[] componente, int[][] alcancaveis, long[][] palavras, int[] primeiraPalavra,
+                              long bytesEstimados) {
+        this.componente = componente;
+        this.alcancaveis = alcancaveis;
+        this.palavras = palavras;
+        this.primeiraPalavra = primeiraPalavra;
+        this.bytesEstimados = bytesEstimados;
+    }
+
+    /**
+     * Constrói o índice com o orçamento de {@value #PROPRIEDADE_ORCAMENTO}
+     * (64 MB se não for definido) e o limite de trabalho padrão.
+     */
+    static ReachabilityIndex construir(ResourceGraph grafo) {
+        return construir(grafo, orcamentoPadrao(), TRABALHO_PADRAO);
+    }
+
+    /**
+     * @param grafo Grafo de recursos
+     * @param orcamentoBytes Memória máxima do índice
+     * @param limiteTrabalho Máximo de unidades de união durante a construção
+     * @return O índice, ou null se ele não couber no orçamento ou no limite de trabalho
+     */
+    static ReachabilityIndex construir(ResourceGraph grafo, long orcamentoBytes, long limiteTrabalho) {
+        int[] componente = new int[grafo.vertices()];
+        int componentes = componentesFortes(grafo, componente);
+
+        // Membros de cada componente, para percorrer as arestas que saem dele
+        int[] inicioMembros = new int[componentes + 1];
+        for (int c : componente) {
+            inicioMembros[c + 1]++;
+        }
+        for (int c = 0; c < componentes; c++) {
+            inicioMembros[c + 1] += inicioMembros[c];
+        }
+        int[] membros = new int[componente.length];
+        int[] proximo = Arrays.copyOf(inicioMembros, componentes);
+        for (int v = 0; v < componente.length; v++) {
+            membros[proximo[componente[v]]++] = v;
+        }
+
+        int[][] alcancaveis = new int[componentes][];
+        long[][] palavras = new long[componentes][];
+        int[] primeiraPalavra = new int[componentes];
+        long bytes = 64 + 4L * componente.length + 24L * componentes;
+        long[] acumulado = new long[(componentes + 63) >>> 6];
+        IntArrayStack tocadas = new IntArrayStack();
+        long trabalho = 0;
+
+        // Na numeração de Tarjan os sucessores de c têm número menor, então
+        // já estão prontos quando c é processado.
+        for (int c = 0; c < componentes; c++) {
+            marcar(acumulado, tocadas, c);
+            for (int m = inicioMembros[c]; m < inicioMembros[c + 1]; m++) {
+                int v = membros[m];
+                for (int p = grafo.inicio(v); p < grafo.fim(v); p++) {
+                    int d = componente[grafo.destino(p)];
+                    if (d != c && (acumulado[d >>> 6] & (1L << d)) == 0) {
+                        trabalho += unir(acumulado, tocadas, d, alcancaveis[d], palavras[d], primeiraPalavra[d]);
+                    }
+                }
+                if (trabalho > limiteTrabalho) {
+                    return null;
+                }
+            }
+            bytes += compactar(acumulado, tocadas, c, alcancaveis, palavras, primeiraPalavra);
+            if (bytes > orcamentoBytes) {
+                return null;
+            }
+        }
+        return new ReachabilityIndex(componente, alcancaveis, palavras, primeiraPalavra, bytes);
+    }
+
+    /**
+     * Se há caminho (de zero ou mais arestas) da origem ao alvo.
+     */
+    boolean alcanca(int origem, int alvo) {
+        int de = componente[origem];
+        int para = componente[alvo];
+        if (de == para) {
+            return true;
+        }
+        if (para > de) {
+            return false;
+        }
+        int[] lista = alcancaveis[de];
+        if (lista != null) {
+            return Arrays.binarySearch(lista, para) >= 0;
+        }
+        int palavra = (para >>> 6) - primeiraPalavra[de];
+        long[] bits = palavras[de];
+        return palavra >= 0 && palavra < bits.length && (bits[palavra] & (1L << para)) != 0;
+    }
+
+    int componente(int v) {
+        return componente[v];
+    }
+
+    long bytesEstimados() {
+        return bytesEstimados;
+    }
+
+    /**
+     * Tarjan iterativo. Preenche o componente de cada vértice e retorna a
+     * quantidade de componentes, numerados na ordem em que se completam.
+     */
+    private static int componentesFortes(ResourceGraph grafo, int[] componente) {
+        int vertices = grafo.vertices();
+        int[] ordem = new int[vertices];
+        int[] menor = new int[vertices];
+        boolean[] naPilha = new boolean[vertices];
+        Arrays.fill(ordem, NAO_VISITADO);
+        IntArrayStack pilha = new IntArrayStack();
+        // Pilha de chamadas: vértice e próxima aresta a examinar
+        int[] chamadaVertice = new int[16];
+        int[] chamadaAresta = new int[16];
+        int contador = 0;
+        int componentes = 0;
+
+        for (int raiz = 0; raiz < vertices; raiz++) {
+            if (ordem[raiz] != NAO_VISITADO) {
+                continue;
+            }
+            int profundidade = 0;
+            chamadaVertice[0] = raiz;
+            chamadaAresta[0] = grafo.inicio(raiz);
+            ordem[raiz] = menor[raiz] = contador++;
+            pilha.empilhar(raiz);
+            naPilha[raiz] = true;
+            while (profundidade >= 0) {
+                int v = chamadaVertice[profundidade];
+                int p = chamadaAresta[profundidade];
+                if (p < grafo.fim(v)) {
+                    chamadaAresta[profundidade] = p + 1;
+                    int w = grafo.destino(p);
+                    if (ordem[w] == NAO_VISITADO) {
+                        ordem[w] = menor[w] = contador++;
+                        pilha.empilhar(w);
+                        naPilha[w] = true;
+                        if (++profundidade == chamadaVertice.length) {
+                            chamadaVertice = Arrays.copyOf(chamadaVertice, profundidade * 2);
+                            chamadaAresta = Arrays.copyOf(chamadaAresta, profundidade * 2);
+                        }
+                        chamadaVertice[profundidade] = w;
+                        chamadaAresta[profundidade] = grafo.inicio(w);
+                    } else if (naPilha[w]) {
+                        menor[v] = Math.min(menor[v], ordem[w]);
+                    }
+                    continue;
+                }
+                if (menor[v] == ordem[v]) {
+                    int w;
+                    do {
+                        w = pilha.desempilhar();
+                        naPilha[w] = false;
+                        componente[w] = componentes;
+                    } while (w != v);
+                    componentes++;
+                }
+                if (--profundidade >= 0) {
+                    int pai = chamadaVertice[profundidade];
+                    menor[pai] = Math.min(menor[pai], menor[v]);
+                }
+            }
+        }
+        return componentes;
+    }
+
+    private static void marcar(long[] acumulado, IntArrayStack tocadas, int c) {
+        int palavra = c >>> 6;
+        if (acumulado[palavra] == 0) {
+            tocadas.empilhar(palavra);
+        }
+        acumulado[palavra] |= 1L << c;
+    }
+
+    /**
+     * Acrescenta ao acumulado o fecho já calculado de outro componente e
+     * retorna as unidades de trabalho gastas.
+     */
+    private static int unir(long[] acumulado, IntArrayStack tocadas, int c,
+                            int[] lista, long[] bits, int primeira) {
+        if (lista != null) {
+            for (int d : lista) {
+                marcar(acumulado, tocadas, d);
+            }
+            return lista.length;
+        }
+        for (int i = 0; i < bits.length; i++) {
+            if (bits[i] != 0) {
+                int palavra = primeira + i;
+                if (acumulado[palavra] == 0) {
+                    tocadas.empilhar(palavra);
+                }
+                acumulado[palavra] |= bits[i];
+            }
+        }
+        return bits.length;
+    }
+
+    /**
+     * Guarda o acumulado como o fecho do componente, na forma menor, e o
+     * zera para o próximo. Retorna os bytes ocupados.
+     */
+    private static long compactar(long[] acumulado, IntArrayStack tocadas, int c,
+                                  int[][] alcancaveis, long[][] palavras, int[] primeiraPalavra) {
+        int[] usadas = tocadas.paraVetor();
+        tocadas.limpar();
+        Arrays.sort(usadas);
+        int quantidade = 0;
+        for (int palavra : usadas) {
+            quantidade += Long.bitCount(acumulado[palavra]);
+        }
+        int primeira = usadas[0];
+        int faixa = usadas[usadas.length - 1] - primeira + 1;
+        long bytes;
+        if (4L * quantidade <= 8L * faixa) {
+            int[] lista = new int[quantidade];
+            int i = 0;
+            for (int palavra : usadas) {
+                for (long bits = acumulado[palavra]; bits != 0; bits &= bits - 1) {
+                    lista[i++] = (palavra << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            alcancaveis[c] = lista;
+            bytes = 16 + 4L * quantidade;
+        } else {
+            long[] bits = new long[faixa];
+            for (int palavra : usadas) {
+                bits[palavra - primeira] = acumulado[palavra];
+            }
+            palavras[c] = bits;
+            primeiraPalavra[c] = primeira;
+            bytes = 16 + 8L * faixa;
+        }
+        for (int palavra : usadas) {
+            acumulado[palavra] = 0;
+        }
+        return bytes;
+    }
+
+    private static long orcamentoPadrao() {
+        String configurado = System.getProperty(PROPRIEDADE_ORCAMENTO);
+        if (configurado != null) {
+            try {
+                return Math.max(0, Long.parseLong(configurado.trim()));
+            } catch (NumberFormatException e) {
+                // valor inválido: usa o padrão
+            }
+        }
+        return ORCAMENTO_PADRAO;
+    }
+}
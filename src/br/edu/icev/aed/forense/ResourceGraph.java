@@ -0,0 +1,464 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.IntRingQueue;
+import br.edu.icev.aed.forense.colecoes.LongLongHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Grafo de transições entre recursos em formato CSR (compressed sparse row).
+ *
+ * Os vértices são os códigos do dicionário de recursos. Os destinos de todas
+ * as arestas ficam concatenados em {@code destinos}, e os vizinhos de
+ * {@code v} são {@code destinos[inicio[v]]} até {@code destinos[inicio[v + 1] - 1]},
+ * na ordem em que cada transição aparece pela primeira vez no arquivo.
+ *
+ * Também guarda o grafo reverso, usado pela busca bidirecional.
+ *
+ * As buscas reaproveitam, por thread, a fila, o vetor de pais e um vetor de
+ * visitados marcado por geração (um número de busca em vez de booleanos que
+ * precisariam ser limpos), de modo que uma consulta só aloca o caminho
+ * encontrado. Imutável e seguro para leitura por várias threads.
+ */
+final class ResourceGraph {
+
+    private static final int SEM_RECURSO = -1;
+
+    private final int[] inicio;
+    private final int[] destinos;
+    // Grafo reverso: origens das arestas que chegam a cada vértice
+    private final int[] inicioReverso;
+    private final int[] predecessores;
+
+    private final ThreadLocal<Busca> buscas = ThreadLocal.withInitial(this::novaBusca);
+
+    private ResourceGraph(int[] inicio, int[] destinos, int[] inicioReverso, int[] predecessores) {
+        this.inicio = inicio;
+        this.destinos = destinos;
+        this.inicioReverso = inicioReverso;
+        this.predecessores = predecessores;
+    }
+
+    /**
+     * Liga recursos consecutivos de uma mesma sessão, sem laços nem arestas
+     * repetidas.
+     *
+     * @param tabela Eventos do arquivo
+     * @return Grafo com um vértice por recurso do dicionário
+     */
+    static ResourceGraph construir(LogTable tabela) {
+        int vertices = tabela.dicionarioRecursos().tamanho();
+        int[] sessoes = tabela.colunaSessoes();
+        int[] recursos = tabela.colunaRecursos();
+        int[] ultimoRecurso = new int[tabela.dicionarioSessoes().tamanho()];
+        Arrays.fill(ultimoRecurso, SEM_RECURSO);
+
+        LongLongHashMap vistas = new LongLongHashMap();
+        int[] origens = new int[16];
+        int[] alvos = new int[16];
+        int arestas = 0;
+        for (int i = 0; i < tabela.linhas(); i++) {
+            int recurso = recursos[i];
+            int anterior = ultimoRecurso[sessoes[i]];
+            ultimoRecurso[sessoes[i]] = recurso;
+            if (anterior == SEM_RECURSO || anterior == recurso
+                    || !vistas.colocarSeAusente(((long) anterior << 32) | recurso, 0)) {
+                continue;
+            }
+            if (arestas == origens.length) {
+                origens = Arrays.copyOf(origens, arestas * 2);
+                alvos = Arrays.copyOf(alvos, arestas * 2);
+            }
+            origens[arestas] = anterior;
+            alvos[arestas++] = recurso;
+        }
+        return agrupar(vertices, origens, alvos, arestas);
+    }
+
+    /**
+     * Monta as duas direções por ordenação por contagem estável das arestas
+     * (pela origem no grafo direto e pelo alvo no reverso).
+     */
+    private static ResourceGraph agrupar(int vertices, int[] origens, int[] alvos, int arestas) {
+        int[] inicio = new int[vertices + 1];
+        int[] destinos = new int[arestas];
+        ordenarPor(origens, alvos, arestas, inicio, destinos);
+        int[] inicioReverso = new int[vertices + 1];
+        int[] origensReversas = new int[arestas];
+        ordenarPor(alvos, origens, arestas, inicioReverso, origensReversas);
+        return new ResourceGraph(inicio, destinos, inicioReverso, origensReversas);
+    }
+
+    private static void ordenarPor(int[] chaves, int[] valores, int arestas, int[] inicio, int[] saida) {
+        int vertices = inicio.length - 1;
+        for (int e = 0; e < arestas; e++) {
+            inicio[chaves[e] + 1]++;
+        }
+        for (int v = 0; v < vertices; v++) {
+            inicio[v + 1] += inicio[v];
+        }
+        int[] proximo = Arrays.copyOf(inicio, vertices);
+        for (int e = 0; e < arestas; e++) {
+            saida[proximo[chaves[e]]++] = valores[e];
+        }
+    }
+
+    int vertices() {
+        return inicio.length - 1;
+    }
+
+    int arestas() {
+        return destinos.length;
+    }
+
+    /** Posição do primeiro vizinho de {@code v} em {@link #destino(int)}. */
+    int inicio(int v) {
+        return inicio[v];
+    }
+
+    /** Posição seguinte à do último vizinho de {@code v}. */
+    int fim(int v) {
+        return inicio[v + 1];
+    }
+
+    int destino(int posicao) {
+        return destinos[posicao];
+    }
+
+    /**
+     * Caminho mais curto em número de arestas por BFS. Entre caminhos de
+     * mesmo tamanho, vale o primeiro descoberto seguindo os vizinhos na
+     * ordem do arquivo.
+     *
+     * @param origem Vértice inicial
+     * @param alvo Vértice final
+     * @return Vértices do caminho, de origem a alvo, ou null se o alvo for inalcançável
+     */
+    int[] caminhoMaisCurto(int origem, int alvo) {
+        if (origem == alvo) {
+            return new int[]{origem};
+        }
+        Busca busca = buscas.get();
+        int geracao = busca.iniciar();
+        int[] marca = busca.marca;
+        int[] pai = busca.pai;
+        IntRingQueue fila = busca.fila;
+        marca[origem] = geracao;
+        fila.enfileirar(origem);
+        while (!fila.vazia()) {
+            int atual = fila.desenfileirar();
+            for (int p = inicio[atual], fim = inicio[atual + 1]; p < fim; p++) {
+                int vizinho = destinos[p];
+                if (marca[vizinho] != geracao) {
+                    marca[vizinho] = geracao;
+                    pai[vizinho] = atual;
+                    if (vizinho == alvo) {
+                        return caminho(pai, origem, alvo);
+                    }
+                    fila.enfileirar(vizinho);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mesmo resultado de {@link #caminhoMaisCurto(int, int)}, visitando em
+     * geral muito menos vértices.
+     *
+     * A primeira fase expande camadas inteiras a partir da origem (pelo grafo
+     * direto) e do alvo (pelo reverso), sempre pela fronteira menor, até as
+     * duas se encontrarem; isso dá a distância {@code d} e as distâncias
+     * exatas de cada lado até as profundidades exploradas. A segunda fase
+     * repete a BFS a partir da origem admitindo só vértices que estejam em
+     * algum caminho de tamanho {@code d}. Como o primeiro pai de um vértice
+     * desses também está em um caminho mínimo, a ordem relativa de cada
+     * camada e, portanto, o caminho escolhido são os da BFS completa.
+     *
+     * @param origem Vértice inicial
+     * @param alvo Vértice final
+     * @return Vértices do caminho, de origem a alvo, ou null se o alvo for inalcançável
+     */
+    int[] caminhoMaisCurtoBidirecional(int origem, int alvo) {
+        if (origem == alvo) {
+            return new int[]{origem};
+        }
+        Busca busca = buscas.get();
+        int geracao = busca.iniciarBidirecional();
+        int[] marcaF = busca.marcaFrente;
+        int[] distF = busca.distanciaFrente;
+        int[] marcaT = busca.marcaTras;
+        int[] distT = busca.distanciaTras;
+        IntRingQueue frente = busca.fila;
+        IntRingQueue tras = busca.filaTras;
+        marcaF[origem] = geracao;
+        distF[origem] = 0;
+        frente.enfileirar(origem);
+        marcaT[alvo] = geracao;
+        distT[alvo] = 0;
+        tras.enfileirar(alvo);
+
+        int profundidadeF = 0;
+        int profundidadeT = 0;
+        int distancia = Integer.MAX_VALUE;
+        while (distancia == Integer.MAX_VALUE && !frente.vazia() && !tras.vazia()) {
+            if (frente.tamanho() <= tras.tamanho()) {
+                distancia = expandirCamada(frente, inicio, destinos, marcaF, distF, marcaT, distT, geracao,
+                        ++profundidadeF);
+            } else {
+                distancia = expandirCamada(tras, inicioReverso, predecessores, marcaT, distT, marcaF, distF, geracao,
+                        ++profundidadeT);
+            }
+        }
+        if (distancia == Integer.MAX_VALUE) {
+            return null;
+        }
+
+        int[] marca = busca.marca;
+        int[] pai = busca.pai;
+        IntRingQueue fila = busca.fila;
+        fila.limpar();
+        marca[origem] = geracao;
+        fila.enfileirar(origem);
+        for (int camada = 0; !fila.vazia(); camada++) {
+            int restante = distancia - (camada + 1);
+            for (int n = fila.tamanho(); n > 0; n--) {
+                int atual = fila.desenfileirar();
+                for (int p = inicio[atual], fim = inicio[atual + 1]; p < fim; p++) {
+                    int vizinho = destinos[p];
+                    if (marca[vizinho] == geracao) {
+                        continue;
+                    }
+                    boolean admitido = restante <= profundidadeT
+                            ? marcaT[vizinho] == geracao && distT[vizinho] == restante
+                            : marcaF[vizinho] == geracao && distF[vizinho] == camada + 1;
+                    if (admitido) {
+                        marca[vizinho] = geracao;
+                        pai[vizinho] = atual;
+                        if (vizinho == alvo) {
+                            return caminho(pai, origem, alvo);
+                        }
+                        fila.enfileirar(vizinho);
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("Caminho de tamanho " + distancia + " não reconstruído");
+    }
+
+    /**
+     * Expande uma camada inteira de um dos lados e retorna o menor tamanho de
+     * caminho pelos vértices em que os dois lados se encontraram, ou
+     * {@code Integer.MAX_VALUE} se ainda não se encontraram.
+     */
+    private static int expandirCamada(IntRingQueue fila, int[] inicio, int[] vizinhos,
+                                      int[] marca, int[] distancia, int[] marcaOutro, int[] distanciaOutro,
+                                      int geracao, int profundidade) {
+        int melhor = Integer.MAX_VALUE;
+        for (int n = fila.tamanho(); n > 0; n--) {
+            int atual = fila.desenfileirar();
+            for (int p = inicio[atual], fim = inicio[atual + 1]; p < fim; p++) {
+                int v = vizinhos[p];
+                if (marca[v] != geracao) {
+                    marca[v] = geracao;
+                    distancia[v] = profundidade;
+                    fila.enfileirar(v);
+                    if (marcaOutro[v] == geracao) {
+                        melhor = Math.min(melhor, profundidade + distanciaOutro[v]);
+                    }
+                }
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Caminhos mais curtos de uma origem a vários alvos com uma única BFS,
+     * que para assim que todos os alvos alcançáveis forem descobertos. Cada
+     * caminho é o mesmo de {@link #caminhoMaisCurto(int, int)}.
+     *
+     * @param origem Vértice inicial
+     * @param alvos Vértices finais (podem se repetir)
+     * @return Para cada alvo, na mesma ordem, o caminho ou null se for inalcançável
+     */
+    int[][] caminhosMaisCurtos(int origem, int[] alvos) {
+        Busca busca = buscas.get();
+        int geracao = busca.iniciar();
+        int[] marca = busca.marca;
+        int[] pai = busca.pai;
+        int restantes = marcarAlvos(busca, alvos, geracao);
+        IntRingQueue fila = busca.fila;
+        marca[origem] = geracao;
+        if (busca.ehAlvo(origem, geracao)) {
+            restantes--;
+        }
+        fila.enfileirar(origem);
+        while (restantes > 0 && !fila.vazia()) {
+            int atual = fila.desenfileirar();
+            for (int p = inicio[atual], fim = inicio[atual + 1]; p < fim; p++) {
+                int vizinho = destinos[p];
+                if (marca[vizinho] != geracao) {
+                    marca[vizinho] = geracao;
+                    pai[vizinho] = atual;
+                    if (busca.ehAlvo(vizinho, geracao)) {
+                        restantes--;
+                    }
+                    fila.enfileirar(vizinho);
+                }
+            }
+        }
+        int[][] caminhos = new int[alvos.length][];
+        for (int i = 0; i < alvos.length; i++) {
+            if (marca[alvos[i]] == geracao) {
+                caminhos[i] = caminho(pai, origem, alvos[i]);
+            }
+        }
+        return caminhos;
+    }
+
+    /**
+     * Quais origens alcançam o alvo, por uma única BFS no grafo reverso.
+     *
+     * @param alvo Vértice final
+     * @param origens Vértices candidatos (podem se repetir)
+     * @return Para cada origem, na mesma ordem, se ela alcança o alvo
+     */
+    boolean[] origensQueAlcancam(int alvo, int[] origens) {
+        Busca busca = buscas.get();
+        int geracao = busca.iniciar();
+        int[] marca = busca.marca;
+        int restantes = marcarAlvos(busca, origens, geracao);
+        IntRingQueue fila = busca.fila;
+        marca[alvo] = geracao;
+        if (busca.ehAlvo(alvo, geracao)) {
+            restantes--;
+        }
+        fila.enfileirar(alvo);
+        while (restantes > 0 && !fila.vazia()) {
+            int atual = fila.desenfileirar();
+            for (int p = inicioReverso[atual], fim = inicioReverso[atual + 1]; p < fim; p++) {
+                int vizinho = predecessores[p];
+                if (marca[vizinho] != geracao) {
+                    marca[vizinho] = geracao;
+                    if (busca.ehAlvo(vizinho, geracao)) {
+                        restantes--;
+                    }
+                    fila.enfileirar(vizinho);
+                }
+            }
+        }
+        boolean[] alcancam = new boolean[origens.length];
+        for (int i = 0; i < origens.length; i++) {
+            alcancam[i] = marca[origens[i]] == geracao;
+        }
+        return alcancam;
+    }
+
+    /**
+     * Marca os vértices procurados na geração atual e retorna quantos são distintos.
+     */
+    private static int marcarAlvos(Busca busca, int[] alvos, int geracao) {
+        int[] procurado = busca.procurados();
+        int distintos = 0;
+        for (int v : alvos) {
+            if (procurado[v] != geracao) {
+                procurado[v] = geracao;
+                distintos++;
+            }
+        }
+        return distintos;
+    }
+
+    /**
+     * Estimativa de memória ocupada, em bytes (sem as áreas de busca por thread).
+     */
+    long bytesEstimados() {
+        return 96 + 4L * (inicio.length + destinos.length + inicioReverso.length + predecessores.length);
+    }
+
+    private static int[] caminho(int[] pai, int origem, int alvo) {
+        int tamanho = 1;
+        for (int v = alvo; v != origem; v = pai[v]) {
+            tamanho++;
+        }
+        int[] caminho = new int[tamanho];
+        for (int v = alvo, i = tamanho - 1; i >= 0; v = pai[v], i--) {
+            caminho[i] = v;
+        }
+        return caminho;
+    }
+
+    private Busca novaBusca() {
+        return new Busca(vertices());
+    }
+
+    /**
+     * Área de trabalho de uma thread. Um vértice foi visitado na busca atual
+     * se {@code marca[v] == geracao}.
+     */
+    private static final class Busca {
+
+        private final int[] marca;
+        private final int[] pai;
+        private final IntRingQueue fila = new IntRingQueue();
+        private int geracao;
+
+        // Vértices procurados em buscas com vários alvos, alocado sob demanda
+        private int[] procurado;
+
+        // Busca bidirecional, alocada na primeira vez em que é usada
+        private int[] marcaFrente;
+        private int[] distanciaFrente;
+        private int[] marcaTras;
+        private int[] distanciaTras;
+        private IntRingQueue filaTras;
+
+        Busca(int vertices) {
+            marca = new int[vertices];
+            pai = new int[vertices];
+        }
+
+        /** Prepara uma nova busca e retorna sua geração. */
+        int iniciar() {
+            fila.limpar();
+            if (filaTras != null) {
+                filaTras.limpar();
+            }
+            if (++geracao == 0) {
+                Arrays.fill(marca, 0);
+                if (marcaFrente != null) {
+                    Arrays.fill(marcaFrente, 0);
+                    Arrays.fill(marcaTras, 0);
+                }
+                if (procurado != null) {
+                    Arrays.fill(procurado, 0);
+                }
+                geracao = 1;
+            }
+            return geracao;
+        }
+
+        int[] procurados() {
+            if (procurado == null) {
+                procurado = new int[marca.length];
+            }
+            return procurado;
+        }
+
+        boolean ehAlvo(int v, int geracao) {
+            return procurado[v] == geracao;
+        }
+
+        /** Prepara uma nova busca bidirecional e retorna sua geração. */
+        int iniciarBidirecional() {
+            if (filaTras == null) {
+                marcaFrente = new int[marca.length];
+                distanciaFrente = new int[marca.length];
+                marcaTras = new int[marca.length];
+                distanciaTras = new int[marca.length];
+                filaTras = new IntRingQueue();
+            }
+            return iniciar();
+        }
+    }
+}
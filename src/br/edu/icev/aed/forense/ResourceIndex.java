@@ -0,0 +1,146 @@
+package br.edu.icev.aed.forense;
+
+import br.edu.icev.aed.forense.colecoes.LongMinHeap;
+
+import java.util.Arrays;
+
+/**
+ * Índice dos recursos (TARGET_RESOURCE) de uma tabela: os códigos do
+ * dicionário ordenados sem diferenciar maiúsculas, e as linhas de cada
+ * recurso.
+ *
+ * A ordenação é uma permutação de códigos, sem cópia dos textos. Como
+ * caminhos com um mesmo prefixo ficam contíguos nessa ordem, consultas como
+ * {@code /etc/**} viram duas buscas binárias; comparações usam
+ * {@link String#regionMatches(boolean, int, String, int, int)} e
+ * {@link String#CASE_INSENSITIVE_ORDER}, sem criar Strings por consulta.
+ *
+ * Imutável depois de construído.
+ */
+final class ResourceIndex {
+
+    private final StringDictionary recursos;
+    /** Códigos em ordem de nome sem diferenciar maiúsculas (empates pelo código). */
+    private final int[] ordenados;
+    private final PostingIndex linhasPorRecurso;
+
+    private ResourceIndex(StringDictionary recursos, int[] ordenados, PostingIndex linhasPorRecurso) {
+        this.recursos = recursos;
+        this.ordenados = ordenados;
+        this.linhasPorRecurso = linhasPorRecurso;
+    }
+
+    static ResourceIndex construir(LogTable tabela) {
+        StringDictionary recursos = tabela.dicionarioRecursos();
+        Integer[] ordem = new Integer[recursos.tamanho()];
+        for (int c = 0; c < ordem.length; c++) {
+            ordem[c] = c;
+        }
+        Arrays.sort(ordem, (a, b) -> {
+            int c = String.CASE_INSENSITIVE_ORDER.compare(recursos.valor(a), recursos.valor(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        int[] ordenados = new int[ordem.length];
+        for (int i = 0; i < ordem.length; i++) {
+            ordenados[i] = ordem[i];
+        }
+        PostingIndex linhas = PostingIndex.construir(tabela.colunaRecursos(), tabela.linhas(), recursos.tamanho());
+        return new ResourceIndex(recursos, ordenados, linhas);
+    }
+
+    /**
+     * Código do recurso com esse nome. Sem correspondência exata, vale a
+     * primeira grafia (na ordem do arquivo) igual a menos de maiúsculas.
+     *
+     * @return O código, ou -1 se não houver recurso com esse nome
+     */
+    int codigo(String nome) {
+        if (nome == null) {
+            return -1;
+        }
+        int exato = recursos.codigo(nome);
+        if (exato >= 0) {
+            return exato;
+        }
+        int i = primeiroNaoMenor(nome);
+        return i < ordenados.length && recursos.valor(ordenados[i]).equalsIgnoreCase(nome) ? ordenados[i] : -1;
+    }
+
+    /**
+     * Recursos cujo nome começa com o prefixo, sem diferenciar maiúsculas.
+     *
+     * @return Códigos em ordem alfabética
+     */
+    int[] comPrefixo(String prefixo) {
+        int de = primeiroNaoMenor(prefixo);
+        int ate = de;
+        while (ate < ordenados.length
+                && recursos.valor(ordenados[ate]).regionMatches(true, 0, prefixo, 0, prefixo.length())) {
+            ate++;
+        }
+        return Arrays.copyOfRange(ordenados, de, ate);
+    }
+
+    /**
+     * Recursos iguais ao nome a menos de maiúsculas.
+     *
+     * @return Códigos na ordem do arquivo
+     */
+    int[] iguaisSemCaixa(String nome) {
+        int de = primeiroNaoMenor(nome);
+        int ate = de;
+        while (ate < ordenados.length && recursos.valor(ordenados[ate]).equalsIgnoreCase(nome)) {
+            ate++;
+        }
+        return Arrays.copyOfRange(ordenados, de, ate);
+    }
+
+    /**
+     * Linhas em que algum dos recursos aparece, em ordem crescente, por
+     * intercalação das listas de cada recurso.
+     */
+    int[] linhas(int[] codigos) {
+        int total = 0;
+        LongMinHeap proximas = new LongMinHeap(Math.max(1, codigos.length));
+        int[] posicao = new int[codigos.length];
+        for (int k = 0; k < codigos.length; k++) {
+            int r = codigos[k];
+            total += linhasPorRecurso.tamanho(r);
+            posicao[k] = linhasPorRecurso.inicio(r);
+            if (posicao[k] < linhasPorRecurso.fim(r)) {
+                proximas.inserir(((long) linhasPorRecurso.linha(posicao[k]) << 32) | k);
+            }
+        }
+        int[] linhas = new int[total];
+        for (int i = 0; i < total; i++) {
+            long menor = proximas.minimo();
+            int k = (int) menor;
+            linhas[i] = (int) (menor >>> 32);
+            if (++posicao[k] < linhasPorRecurso.fim(codigos[k])) {
+                proximas.substituirMinimo(((long) linhasPorRecurso.linha(posicao[k]) << 32) | k);
+            } else {
+                proximas.removerMinimo();
+            }
+        }
+        return linhas;
+    }
+
+    long bytesEstimados() {
+        return 32 + 4L * ordenados.length + linhasPorRecurso.bytesEstimados();
+    }
+
+    /** Primeira posição cujo nome não é menor que o texto, sem diferenciar maiúsculas. */
+    private int primeiroNaoMenor(String texto) {
+        int baixo = 0;
+        int alto = ordenados.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (recursos.valor(ordenados[meio]).compareToIgnoreCase(texto) < 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+}
@@ -0,0 +1,206 @@
+package br.edu.icev.aed.forense;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dicionário de textos ASCII que atribui um código inteiro sequencial a cada
+ * valor distinto. A busca é feita diretamente sobre os bytes do arquivo, de
+ * modo que um valor repetido não gera uma nova String.
+ *
+ * Não é thread-safe durante a construção; depois de preenchido pode ser lido
+ * por várias threads.
+ */
+public final class StringDictionary {
+
+    private static final int VAZIO = -1;
+
+    private byte[] bytes = new byte[1024];
+    private int usados;
+    private int[] inicio = new int[16];
+    private int[] hashes = new int[16];
+    private String[] valores = new String[16];
+    private int tamanho;
+
+    private int[] tabela = novaTabela(32);
+
+    /**
+     * Retorna o código do texto contido em {@code buffer[posicao, posicao + comprimento)},
+     * adicionando-o ao dicionário se ainda não existir.
+     *
+     * @param buffer Buffer com os bytes do texto
+     * @param posicao Posição absoluta do primeiro byte
+     * @param comprimento Quantidade de bytes
+     * @return Código do texto (0, 1, 2, ... na ordem de inserção)
+     */
+    public int codificar(ByteBuffer buffer, int posicao, int comprimento) {
+        int hash = hash(buffer, posicao, comprimento);
+        int mascara = tabela.length - 1;
+        int slot = hash & mascara;
+        while (true) {
+            int codigo = tabela[slot];
+            if (codigo == VAZIO) {
+                break;
+            }
+            if (hashes[codigo] == hash && iguais(codigo, buffer, posicao, comprimento)) {
+                return codigo;
+            }
+            slot = (slot + 1) & mascara;
+        }
+        int codigo = inserir(buffer, posicao, comprimento, hash, null);
+        tabela[slot] = codigo;
+        if (tamanho * 2 > tabela.length) {
+            redimensionarTabela();
+        }
+        return codigo;
+    }
+
+    /**
+     * Retorna o código de um texto já presente, ou -1 se ele não existir.
+     */
+    public int codigo(String valor) {
+        if (valor == null) {
+            return VAZIO;
+        }
+        byte[] b = valor.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.wrap(b);
+        int hash = hash(buffer, 0, b.length);
+        int mascara = tabela.length - 1;
+        for (int slot = hash & mascara; tabela[slot] != VAZIO; slot = (slot + 1) & mascara) {
+            int codigo = tabela[slot];
+            if (hashes[codigo] == hash && iguais(codigo, buffer, 0, b.length)) {
+                return codigo;
+            }
+        }
+        return VAZIO;
+    }
+
+    /**
+     * Adiciona (ou localiza) um texto já decodificado.
+     */
+    public int codificar(String valor) {
+        byte[] b = valor.getBytes(StandardCharsets.US_ASCII);
+        return codificar(ByteBuffer.wrap(b), 0, b.length);
+    }
+
+    /**
+     * Adiciona (ou localiza) um valor de outro dicionário, reaproveitando a
+     * String já decodificada por ele.
+     */
+    int importar(StringDictionary origem, int codigoOrigem) {
+        int de = origem.inicio[codigoOrigem];
+        int comprimento = origem.inicio[codigoOrigem + 1] - de;
+        int hash = origem.hashes[codigoOrigem];
+        int mascara = tabela.length - 1;
+        int slot = hash & mascara;
+        for (int codigo; (codigo = tabela[slot]) != VAZIO; slot = (slot + 1) & mascara) {
+            if (hashes[codigo] == hash && inicio[codigo + 1] - inicio[codigo] == comprimento
+                    && Arrays.equals(bytes, inicio[codigo], inicio[codigo] + comprimento,
+                                     origem.bytes, de, de + comprimento)) {
+                return codigo;
+            }
+        }
+        int codigo = inserir(ByteBuffer.wrap(origem.bytes, de, comprimento), de, comprimento, hash,
+                origem.valores[codigoOrigem]);
+        tabela[slot] = codigo;
+        if (tamanho * 2 > tabela.length) {
+            redimensionarTabela();
+        }
+        return codigo;
+    }
+
+    /** Quantidade de bytes do valor codificado. */
+    int comprimento(int codigo) {
+        return inicio[codigo + 1] - inicio[codigo];
+    }
+
+    /**
+     * Copia {@code quantidade} bytes do valor, a partir do byte {@code de},
+     * para o destino, a partir da posição atual dele.
+     */
+    void copiarBytes(int codigo, int de, int quantidade, ByteBuffer destino) {
+        destino.put(bytes, inicio[codigo] + de, quantidade);
+    }
+
+    public String valor(int codigo) {
+        return valores[codigo];
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Estimativa de memória ocupada, em bytes.
+     */
+    public long bytesEstimados() {
+        long total = bytes.length + 4L * (inicio.length + hashes.length + tabela.length) + 8L * valores.length;
+        for (int i = 0; i < tamanho; i++) {
+            total += 56 + valores[i].length();
+        }
+        return total;
+    }
+
+    private int inserir(ByteBuffer buffer, int posicao, int comprimento, int hash, String valor) {
+        if (usados + comprimento > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, usados + comprimento));
+        }
+        if (tamanho + 1 >= inicio.length) {
+            int capacidade = inicio.length * 2;
+            inicio = Arrays.copyOf(inicio, capacidade);
+            hashes = Arrays.copyOf(hashes, capacidade);
+            valores = Arrays.copyOf(valores, capacidade);
+        }
+        for (int i = 0; i < comprimento; i++) {
+            bytes[usados + i] = buffer.get(posicao + i);
+        }
+        int codigo = tamanho++;
+        inicio[codigo] = usados;
+        usados += comprimento;
+        inicio[tamanho] = usados;
+        hashes[codigo] = hash;
+        valores[codigo] = valor != null ? valor
+                : new String(bytes, inicio[codigo], comprimento, StandardCharsets.US_ASCII);
+        return codigo;
+    }
+
+    private boolean iguais(int codigo, ByteBuffer buffer, int posicao, int comprimento) {
+        int de = inicio[codigo];
+        if (inicio[codigo + 1] - de != comprimento) {
+            return false;
+        }
+        for (int i = 0; i < comprimento; i++) {
+            if (bytes[de + i] != buffer.get(posicao + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void redimensionarTabela() {
+        tabela = novaTabela(tabela.length * 2);
+        int mascara = tabela.length - 1;
+        for (int codigo = 0; codigo < tamanho; codigo++) {
+            int slot = hashes[codigo] & mascara;
+            while (tabela[slot] != VAZIO) {
+                slot = (slot + 1) & mascara;
+            }
+            tabela[slot] = codigo;
+        }
+    }
+
+    private static int[] novaTabela(int capacidade) {
+        int[] t = new int[capacidade];
+        Arrays.fill(t, VAZIO);
+        return t;
+    }
+
+    private static int hash(ByteBuffer buffer, int posicao, int comprimento) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < comprimento; i++) {
+            h = (h ^ buffer.get(posicao + i)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
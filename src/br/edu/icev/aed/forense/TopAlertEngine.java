@@ -0,0 +1,236 @@
+package br.edu.icev.aed.forense;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Seleção dos N eventos de maior prioridade em uma única passada, guardando
+ * apenas chaves primitivas (severidade, timestamp, bytes e sequência).
+ *
+ * A ordem é a de {@link AnaliseForenseAvancada#priorizarAlertas}: maior
+ * severidade, depois mais antigo, depois mais bytes, e por fim a menor
+ * sequência (em geral o número da linha), o que torna o resultado
+ * determinístico.
+ *
+ * Os candidatos ficam em um balde por severidade, cada um limitado a N. Um
+ * balde inteiro é descartado assim que as severidades acima dele já somam N
+ * candidatos, de modo que a memória ocupada é O(N) independentemente do
+ * tamanho do arquivo. Instâncias podem ser preenchidas em paralelo sobre
+ * partes diferentes do arquivo e depois combinadas com {@link #mesclar}.
+ *
+ * Não é thread-safe.
+ */
+final class TopAlertEngine {
+
+    private final int n;
+    private final TreeMap<Integer, Balde> baldes = new TreeMap<>();
+    private int total;
+
+    /**
+     * @param n Quantidade de eventos selecionados
+     */
+    TopAlertEngine(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n negativo: " + n);
+        }
+        this.n = n;
+    }
+
+    /**
+     * Considera um evento para a seleção.
+     *
+     * @param severidade Severidade do evento
+     * @param timestamp Timestamp do evento
+     * @param bytes Bytes transferidos
+     * @param sequencia Desempate final, único por evento (por exemplo, o número da linha)
+     * @return true se o evento ficou entre os candidatos (podendo sair depois)
+     */
+    boolean oferecer(int severidade, long timestamp, long bytes, long sequencia) {
+        if (n == 0) {
+            return false;
+        }
+        Balde balde = baldes.get(severidade);
+        if (balde == null) {
+            if (total >= n && severidade < baldes.firstKey()) {
+                return false;
+            }
+            balde = new Balde(n);
+            baldes.put(severidade, balde);
+        }
+        int resultado = balde.oferecer(timestamp, bytes, sequencia);
+        if (resultado == Balde.CRESCEU) {
+            total++;
+            podar();
+        }
+        return resultado != Balde.DESCARTADO;
+    }
+
+    /**
+     * Acrescenta os candidatos de outra instância com o mesmo N.
+     */
+    void mesclar(TopAlertEngine outro) {
+        for (Map.Entry<Integer, Balde> entrada : outro.baldes.entrySet()) {
+            Balde balde = entrada.getValue();
+            for (int i = 0; i < balde.tamanho; i++) {
+                oferecer(entrada.getKey(), balde.timestamps[i], balde.bytes[i], balde.sequencias[i]);
+            }
+        }
+    }
+
+    /**
+     * Sequências dos eventos selecionados, da maior para a menor prioridade.
+     */
+    long[] sequencias() {
+        long[] resultado = new long[Math.min(n, total)];
+        int preenchidos = 0;
+        for (Balde balde : baldes.descendingMap().values()) {
+            int[] ordem = balde.ordenar();
+            for (int i = 0; i < ordem.length && preenchidos < resultado.length; i++) {
+                resultado[preenchidos++] = balde.sequencias[ordem[i]];
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Remove o balde de menor severidade enquanto os demais já bastarem.
+     */
+    private void podar() {
+        while (baldes.size() > 1) {
+            Map.Entry<Integer, Balde> menor = baldes.firstEntry();
+            int restantes = total - menor.getValue().tamanho;
+            if (restantes < n) {
+                return;
+            }
+            baldes.pollFirstEntry();
+            total = restantes;
+        }
+    }
+
+    /**
+     * Candidatos de uma mesma severidade em um heap com o pior na raiz,
+     * guardados em vetores paralelos.
+     */
+    private static final class Balde {
+
+        static final int DESCARTADO = 0;
+        static final int SUBSTITUIU = 1;
+        static final int CRESCEU = 2;
+
+        private final int capacidade;
+        private long[] timestamps = new long[8];
+        private long[] bytes = new long[8];
+        private long[] sequencias = new long[8];
+        private int tamanho;
+
+        Balde(int capacidade) {
+            this.capacidade = capacidade;
+        }
+
+        /**
+         * @return {@link #CRESCEU}, {@link #SUBSTITUIU} (o pior saiu) ou
+         *         {@link #DESCARTADO}
+         */
+        int oferecer(long timestamp, long quantidade, long sequencia) {
+            if (tamanho < capacidade) {
+                if (tamanho == timestamps.length) {
+                    int novo = (int) Math.min(capacidade, 2L * tamanho);
+                    timestamps = Arrays.copyOf(timestamps, novo);
+                    bytes = Arrays.copyOf(bytes, novo);
+                    sequencias = Arrays.copyOf(sequencias, novo);
+                }
+                definir(tamanho, timestamp, quantidade, sequencia);
+                subir(tamanho++);
+                return CRESCEU;
+            }
+            if (TopAlertEngine.comparar(timestamp, quantidade, sequencia,
+                    timestamps[0], bytes[0], sequencias[0]) < 0) {
+                definir(0, timestamp, quantidade, sequencia);
+                descer(0);
+                return SUBSTITUIU;
+            }
+            return DESCARTADO;
+        }
+
+        /** Índices dos candidatos, do melhor para o pior. */
+        int[] ordenar() {
+            Integer[] ordem = new Integer[tamanho];
+            for (int i = 0; i < tamanho; i++) {
+                ordem[i] = i;
+            }
+            Arrays.sort(ordem, (a, b) -> comparar(a, b));
+            int[] resultado = new int[tamanho];
+            for (int i = 0; i < tamanho; i++) {
+                resultado[i] = ordem[i];
+            }
+            return resultado;
+        }
+
+        private void definir(int i, long timestamp, long quantidade, long sequencia) {
+            timestamps[i] = timestamp;
+            bytes[i] = quantidade;
+            sequencias[i] = sequencia;
+        }
+
+        private void subir(int i) {
+            while (i > 0) {
+                int pai = (i - 1) >>> 1;
+                if (comparar(i, pai) <= 0) {
+                    return;
+                }
+                trocar(i, pai);
+                i = pai;
+            }
+        }
+
+        private void descer(int i) {
+            while (true) {
+                int pior = i;
+                int esquerdo = 2 * i + 1;
+                int direito = esquerdo + 1;
+                if (esquerdo < tamanho && comparar(esquerdo, pior) > 0) {
+                    pior = esquerdo;
+                }
+                if (direito < tamanho && comparar(direito, pior) > 0) {
+                    pior = direito;
+                }
+                if (pior == i) {
+                    return;
+                }
+                trocar(i, pior);
+                i = pior;
+            }
+        }
+
+        private int comparar(int a, int b) {
+            return TopAlertEngine.comparar(timestamps[a], bytes[a], sequencias[a],
+                    timestamps[b], bytes[b], sequencias[b]);
+        }
+
+        private void trocar(int a, int b) {
+            long t = timestamps[a];
+            timestamps[a] = timestamps[b];
+            timestamps[b] = t;
+            t = bytes[a];
+            bytes[a] = bytes[b];
+            bytes[b] = t;
+            t = sequencias[a];
+            sequencias[a] = sequencias[b];
+            sequencias[b] = t;
+        }
+    }
+
+    /**
+     * Ordem entre eventos de mesma severidade: negativo se o primeiro tem
+     * prioridade maior.
+     */
+    static int comparar(long timestampA, long bytesA, long sequenciaA,
+                        long timestampB, long bytesB, long sequenciaB) {
+        int c = Long.compare(timestampA, timestampB);
+        if (c == 0) {
+            c = Long.compare(bytesB, bytesA);
+        }
+        return c != 0 ? c : Long.compare(sequenciaA, sequenciaB);
+    }
+}
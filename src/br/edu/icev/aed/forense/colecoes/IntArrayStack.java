@@ -0,0 +1,80 @@
+package br.edu.icev.aed.forense.colecoes;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Pilha de int sobre um vetor que cresce sob demanda, sem boxing nem
+ * sincronização (ao contrário de {@link java.util.Stack}).
+ *
+ * Não é thread-safe.
+ */
+public final class IntArrayStack {
+
+    private int[] elementos;
+    private int tamanho;
+
+    public IntArrayStack() {
+        this(16);
+    }
+
+    public IntArrayStack(int capacidadeInicial) {
+        elementos = new int[Math.max(1, capacidadeInicial)];
+    }
+
+    public void empilhar(int valor) {
+        if (tamanho == elementos.length) {
+            elementos = Arrays.copyOf(elementos, tamanho * 2);
+        }
+        elementos[tamanho++] = valor;
+    }
+
+    /**
+     * Remove e retorna o elemento do topo.
+     *
+     * @throws NoSuchElementException Se a pilha estiver vazia
+     */
+    public int desempilhar() {
+        if (tamanho == 0) {
+            throw new NoSuchElementException("Pilha vazia");
+        }
+        return elementos[--tamanho];
+    }
+
+    /**
+     * Elemento do topo, sem removê-lo.
+     *
+     * @throws NoSuchElementException Se a pilha estiver vazia
+     */
+    public int topo() {
+        if (tamanho == 0) {
+            throw new NoSuchElementException("Pilha vazia");
+        }
+        return elementos[tamanho - 1];
+    }
+
+    /** Elemento na posição, contada a partir da base (0). */
+    public int obter(int posicao) {
+        if (posicao < 0 || posicao >= tamanho) {
+            throw new IndexOutOfBoundsException("Posição " + posicao + " fora de [0, " + tamanho + ")");
+        }
+        return elementos[posicao];
+    }
+
+    public boolean vazia() {
+        return tamanho == 0;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public void limpar() {
+        tamanho = 0;
+    }
+
+    /** Cópia dos elementos, da base para o topo. */
+    public int[] paraVetor() {
+        return Arrays.copyOf(elementos, tamanho);
+    }
+}
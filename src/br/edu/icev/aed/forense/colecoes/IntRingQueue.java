@@ -0,0 +1,91 @@
+package br.edu.icev.aed.forense.colecoes;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Fila FIFO de int em um buffer circular cuja capacidade é potência de 2
+ * e dobra quando enche. Depois de {@link #limpar()} a memória é
+ * reaproveitada, o que permite usar a mesma fila em várias buscas.
+ *
+ * Não é thread-safe.
+ */
+public final class IntRingQueue {
+
+    private int[] elementos;
+    private int inicio;
+    private int tamanho;
+
+    public IntRingQueue() {
+        this(16);
+    }
+
+    public IntRingQueue(int capacidadeInicial) {
+        elementos = new int[Integer.highestOneBit(Math.max(2, capacidadeInicial) * 2 - 1)];
+    }
+
+    public void enfileirar(int valor) {
+        if (tamanho == elementos.length) {
+            crescer();
+        }
+        elementos[(inicio + tamanho++) & (elementos.length - 1)] = valor;
+    }
+
+    /**
+     * Remove e retorna o primeiro elemento.
+     *
+     * @throws NoSuchElementException Se a fila estiver vazia
+     */
+    public int desenfileirar() {
+        if (tamanho == 0) {
+            throw new NoSuchElementException("Fila vazia");
+        }
+        int valor = elementos[inicio];
+        inicio = (inicio + 1) & (elementos.length - 1);
+        tamanho--;
+        return valor;
+    }
+
+    /**
+     * Primeiro elemento, sem removê-lo.
+     *
+     * @throws NoSuchElementException Se a fila estiver vazia
+     */
+    public int primeiro() {
+        if (tamanho == 0) {
+            throw new NoSuchElementException("Fila vazia");
+        }
+        return elementos[inicio];
+    }
+
+    public boolean vazia() {
+        return tamanho == 0;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public void limpar() {
+        inicio = 0;
+        tamanho = 0;
+    }
+
+    private void crescer() {
+        int[] novos = new int[elementos.length * 2];
+        int ateFim = elementos.length - inicio;
+        System.arraycopy(elementos, inicio, novos, 0, ateFim);
+        System.arraycopy(elementos, 0, novos, ateFim, inicio);
+        elementos = novos;
+        inicio = 0;
+    }
+
+    @Override
+    public String toString() {
+        int[] copia = new int[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            copia[i] = elementos[(inicio + i) & (elementos.length - 1)];
+        }
+        return Arrays.toString(copia);
+    }
+}
@@ -0,0 +1,207 @@
+package br.edu.icev.aed.forense.colecoes;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de long para long com endereçamento aberto e sondagem linear, em
+ * dois vetores paralelos, sem objetos por entrada. Também serve como
+ * conjunto de long (ver {@link #colocarSeAusente}).
+ *
+ * A chave 0 marca posições livres na tabela; quando ela é usada de fato,
+ * fica guardada à parte.
+ *
+ * Não é thread-safe enquanto é alterado; depois disso pode ser lido por
+ * várias threads.
+ */
+public final class LongLongHashMap {
+
+    /** Recebe cada par chave/valor de {@link #paraCada}. */
+    @FunctionalInterface
+    public interface ConsumidorPar {
+        void aceitar(long chave, long valor);
+    }
+
+    private static final long LIVRE = 0;
+
+    private long[] chaves;
+    private long[] valores;
+    private int ocupados;
+    private boolean temLivre;
+    private long valorLivre;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param capacidadeEsperada Quantidade de entradas prevista
+     */
+    public LongLongHashMap(int capacidadeEsperada) {
+        int capacidade = Integer.highestOneBit(Math.max(4, capacidadeEsperada) * 2 - 1) << 1;
+        chaves = new long[capacidade];
+        valores = new long[capacidade];
+    }
+
+    /**
+     * Associa o valor à chave, substituindo o anterior.
+     */
+    public void colocar(long chave, long valor) {
+        if (chave == LIVRE) {
+            temLivre = true;
+            valorLivre = valor;
+            return;
+        }
+        int slot = posicao(chave);
+        if (chaves[slot] == LIVRE) {
+            chaves[slot] = chave;
+            valores[slot] = valor;
+            if (++ocupados * 2 > chaves.length) {
+                redimensionar();
+            }
+            return;
+        }
+        valores[slot] = valor;
+    }
+
+    /**
+     * Associa o valor à chave apenas se ela ainda não existir.
+     *
+     * @return true se a chave foi inserida
+     */
+    public boolean colocarSeAusente(long chave, long valor) {
+        if (contem(chave)) {
+            return false;
+        }
+        colocar(chave, valor);
+        return true;
+    }
+
+    /**
+     * @return O valor da chave, ou {@code padrao} se ela não existir
+     */
+    public long obter(long chave, long padrao) {
+        if (chave == LIVRE) {
+            return temLivre ? valorLivre : padrao;
+        }
+        int slot = posicao(chave);
+        return chaves[slot] == LIVRE ? padrao : valores[slot];
+    }
+
+    public boolean contem(long chave) {
+        return chave == LIVRE ? temLivre : chaves[posicao(chave)] != LIVRE;
+    }
+
+    public int tamanho() {
+        return ocupados + (temLivre ? 1 : 0);
+    }
+
+    public boolean vazio() {
+        return tamanho() == 0;
+    }
+
+    public void limpar() {
+        Arrays.fill(chaves, LIVRE);
+        ocupados = 0;
+        temLivre = false;
+    }
+
+    /**
+     * Percorre as entradas sem criar objetos, em ordem não especificada.
+     */
+    public void paraCada(ConsumidorPar consumidor) {
+        if (temLivre) {
+            consumidor.aceitar(LIVRE, valorLivre);
+        }
+        for (int i = 0; i < chaves.length; i++) {
+            if (chaves[i] != LIVRE) {
+                consumidor.aceitar(chaves[i], valores[i]);
+            }
+        }
+    }
+
+    /**
+     * Cursor sobre as entradas, na mesma ordem de {@link #paraCada}.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /** Cópia independente. */
+    public LongLongHashMap copia() {
+        LongLongHashMap copia = new LongLongHashMap(1);
+        copia.chaves = chaves.clone();
+        copia.valores = valores.clone();
+        copia.ocupados = ocupados;
+        copia.temLivre = temLivre;
+        copia.valorLivre = valorLivre;
+        return copia;
+    }
+
+    /**
+     * Estimativa de memória ocupada, em bytes.
+     */
+    public long bytesEstimados() {
+        return 48 + 16L * chaves.length;
+    }
+
+    private int posicao(long chave) {
+        int mascara = chaves.length - 1;
+        int slot = mistura(chave) & mascara;
+        while (chaves[slot] != LIVRE && chaves[slot] != chave) {
+            slot = (slot + 1) & mascara;
+        }
+        return slot;
+    }
+
+    private void redimensionar() {
+        long[] antigasChaves = chaves;
+        long[] antigosValores = valores;
+        chaves = new long[antigasChaves.length * 2];
+        valores = new long[antigasChaves.length * 2];
+        for (int i = 0; i < antigasChaves.length; i++) {
+            if (antigasChaves[i] != LIVRE) {
+                int slot = posicao(antigasChaves[i]);
+                chaves[slot] = antigasChaves[i];
+                valores[slot] = antigosValores[i];
+            }
+        }
+    }
+
+    private static int mistura(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Percorre a entrada da chave livre (se houver) e depois as posições da
+     * tabela. O mapa não deve ser alterado durante o percurso.
+     */
+    public final class Cursor {
+
+        private int slot = temLivre ? -2 : -1;
+
+        /**
+         * Avança para a próxima entrada.
+         *
+         * @return false se não houver mais entradas
+         */
+        public boolean proximo() {
+            slot++;
+            if (slot == -1) {
+                return true;
+            }
+            while (slot < chaves.length && chaves[slot] == LIVRE) {
+                slot++;
+            }
+            return slot < chaves.length;
+        }
+
+        public long chave() {
+            return slot < 0 ? LIVRE : chaves[slot];
+        }
+
+        public long valor() {
+            return slot < 0 ? valorLivre : valores[slot];
+        }
+    }
+}
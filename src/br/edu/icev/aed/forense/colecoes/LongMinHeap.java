@@ -0,0 +1,120 @@
+package br.edu.icev.aed.forense.colecoes;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Heap binário de mínimo sobre long. Chaves compostas podem ser
+ * empacotadas em um único long (por exemplo, prioridade nos bits altos e
+ * um índice nos bits baixos) para ordenar sem objetos.
+ *
+ * Não é thread-safe.
+ */
+public final class LongMinHeap {
+
+    private long[] elementos;
+    private int tamanho;
+
+    public LongMinHeap() {
+        this(16);
+    }
+
+    public LongMinHeap(int capacidadeInicial) {
+        elementos = new long[Math.max(1, capacidadeInicial)];
+    }
+
+    public void inserir(long valor) {
+        if (tamanho == elementos.length) {
+            elementos = Arrays.copyOf(elementos, tamanho * 2);
+        }
+        int i = tamanho++;
+        while (i > 0) {
+            int pai = (i - 1) >>> 1;
+            if (elementos[pai] <= valor) {
+                break;
+            }
+            elementos[i] = elementos[pai];
+            i = pai;
+        }
+        elementos[i] = valor;
+    }
+
+    /**
+     * Menor elemento, sem removê-lo.
+     *
+     * @throws NoSuchElementException Se o heap estiver vazio
+     */
+    public long minimo() {
+        if (tamanho == 0) {
+            throw new NoSuchElementException("Heap vazio");
+        }
+        return elementos[0];
+    }
+
+    /**
+     * Remove e retorna o menor elemento.
+     *
+     * @throws NoSuchElementException Se o heap estiver vazio
+     */
+    public long removerMinimo() {
+        long minimo = minimo();
+        long ultimo = elementos[--tamanho];
+        int i = 0;
+        while (true) {
+            int filho = 2 * i + 1;
+            if (filho >= tamanho) {
+                break;
+            }
+            if (filho + 1 < tamanho && elementos[filho + 1] < elementos[filho]) {
+                filho++;
+            }
+            if (ultimo <= elementos[filho]) {
+                break;
+            }
+            elementos[i] = elementos[filho];
+            i = filho;
+        }
+        if (tamanho > 0) {
+            elementos[i] = ultimo;
+        }
+        return minimo;
+    }
+
+    /**
+     * Substitui o menor elemento por outro valor, em uma única descida.
+     * Útil para manter os K maiores valores de uma sequência.
+     *
+     * @throws NoSuchElementException Se o heap estiver vazio
+     */
+    public void substituirMinimo(long valor) {
+        minimo();
+        int i = 0;
+        while (true) {
+            int filho = 2 * i + 1;
+            if (filho >= tamanho) {
+                break;
+            }
+            if (filho + 1 < tamanho && elementos[filho + 1] < elementos[filho]) {
+                filho++;
+            }
+            if (valor <= elementos[filho]) {
+                break;
+            }
+            elementos[i] = elementos[filho];
+            i = filho;
+        }
+        elementos[i] = valor;
+    }
+
+    public boolean vazio() {
+        return tamanho == 0;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public void limpar() {
+        tamanho = 0;
+    }
+}
@@ -0,0 +1,63 @@
+package br.edu.icev.aed.forense;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compara {@link ResourceGraph#caminhoMaisCurtoBidirecional} com a busca em
+ * largura de um só sentido ({@link ResourceGraph#caminhoMaisCurto}) em grafos
+ * aleatórios, para todos os pares de recursos: os caminhos devem ser iguais,
+ * inclusive no desempate entre caminhos de mesmo tamanho.
+ *
+ * Os grafos alternam entre poucos recursos com muitas arestas (caminhos
+ * curtos e muitos empates) e muitos recursos com poucas arestas (caminhos
+ * longos e pares sem caminho).
+ */
+public class VerificacaoBfsBidirecional {
+
+    private static final int GRAFOS = 300;
+
+    public static void main(String[] args) throws Exception {
+        long semente = args.length > 0 ? Long.parseLong(args[0]) : 11;
+        Random aleatorio = new Random(semente);
+        Path arquivo = Files.createTempFile("verificacao-bfs", ".csv");
+        long pares = 0;
+        long alcancaveis = 0;
+        try {
+            for (int grafo = 0; grafo < GRAFOS; grafo++) {
+                boolean denso = grafo % 2 == 0;
+                int recursos = 2 + aleatorio.nextInt(denso ? 8 : 200);
+                int sessoes = denso ? 1 + aleatorio.nextInt(40) : 50 + aleatorio.nextInt(400);
+                StringBuilder csv = new StringBuilder(
+                        "TIMESTAMP,USER_ID,SESSION_ID,ACTION_TYPE,TARGET_RESOURCE,SEVERITY_LEVEL,BYTES_TRANSFERRED\n");
+                int linhas = aleatorio.nextInt(400);
+                for (int i = 0; i < linhas; i++) {
+                    int recurso = denso && aleatorio.nextInt(5) == 0 ? 0 : aleatorio.nextInt(recursos);
+                    csv.append(i).append(",u,s").append(aleatorio.nextInt(sessoes))
+                            .append(",FILE_ACCESS,/r").append(recurso).append(",1,0\n");
+                }
+                Files.writeString(arquivo, csv);
+                ResourceGraph g = ResourceGraph.construir(LogTable.carregar(arquivo));
+                for (int origem = 0; origem < g.vertices(); origem++) {
+                    for (int alvo = 0; alvo < g.vertices(); alvo++) {
+                        int[] esperado = g.caminhoMaisCurto(origem, alvo);
+                        int[] obtido = g.caminhoMaisCurtoBidirecional(origem, alvo);
+                        if (!Arrays.equals(esperado, obtido)) {
+                            throw new AssertionError("semente " + semente + ", grafo " + grafo + ", " + origem
+                                    + " -> " + alvo + ": esperado " + Arrays.toString(esperado)
+                                    + ", obtido " + Arrays.toString(obtido));
+                        }
+                        pares++;
+                        alcancaveis += esperado == null ? 0 : 1;
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+        System.out.println("BFS bidirecional: " + pares + " pares conferidos com a busca de um sentido ("
+                + alcancaveis + " com caminho)");
+    }
+}
@@ -0,0 +1,182 @@
+package br.edu.icev.aed.forense;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Confere as buscas de 8 bytes por vez (SWAR) de {@link LogReader} e de
+ * {@link LogFilter} contra implementações diretas, byte a byte:
+ *
+ * <ul>
+ * <li>CSVs aleatórios, com campos de 0 a 20 caracteres (separadores em todas
+ * as posições de um bloco), linhas vazias, {@code \r\n}, última linha sem
+ * terminador e linhas malformadas, lidos pelo {@link LogReader} e por um
+ * separador baseado em {@link String#split}: os registros e o ponto em que a
+ * leitura falha devem coincidir;</li>
+ * <li>filtros de faixa de severidade sobre tabelas de tamanhos que não são
+ * múltiplos de 8, comparados com a avaliação linha a linha.</li>
+ * </ul>
+ *
+ * Com {@code JAVA_OPTS=-Daed.forense.swar=false ./testes.sh} o caminho byte a
+ * byte é conferido contra as mesmas referências.
+ */
+public class VerificacaoSwar {
+
+    private static final String CABECALHO =
+            "TIMESTAMP,USER_ID,SESSION_ID,ACTION_TYPE,TARGET_RESOURCE,SEVERITY_LEVEL,BYTES_TRANSFERRED";
+    private static final int ARQUIVOS = 2000;
+    private static final int TABELAS = 300;
+
+    public static void main(String[] args) throws Exception {
+        long semente = args.length > 0 ? Long.parseLong(args[0]) : 25;
+        Random aleatorio = new Random(semente);
+        Path arquivo = Files.createTempFile("verificacao-swar", ".csv");
+        try {
+            int registros = verificarLeitor(aleatorio, arquivo, semente);
+            int filtros = verificarFiltro(aleatorio, arquivo, semente);
+            System.out.println("SWAR (" + (LogReader.SWAR ? "ativo" : "desativado") + "): " + registros
+                    + " registros e " + filtros + " filtros de severidade conferidos");
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    private static int verificarLeitor(Random aleatorio, Path arquivo, long semente) throws IOException {
+        int registros = 0;
+        for (int i = 0; i < ARQUIVOS; i++) {
+            String csv = gerarCsv(aleatorio);
+            Files.write(arquivo, csv.getBytes(StandardCharsets.US_ASCII));
+            List<String> esperado = separar(csv);
+            List<String> obtido = new ArrayList<>();
+            try (LogReader leitor = LogReader.abrir(arquivo)) {
+                while (leitor.proximo()) {
+                    obtido.add(leitor.timestamp() + "|" + leitor.texto(LogReader.USER_ID) + "|"
+                            + leitor.texto(LogReader.SESSION_ID) + "|" + leitor.texto(LogReader.ACTION_TYPE) + "|"
+                            + leitor.texto(LogReader.TARGET_RESOURCE) + "|" + leitor.severidade() + "|"
+                            + leitor.bytesTransferidos());
+                }
+            } catch (IOException e) {
+                obtido.add(MALFORMADA);
+            }
+            if (!esperado.equals(obtido)) {
+                throw new AssertionError("semente " + semente + ", arquivo " + i + ":\n" + csv
+                        + "\nesperado " + esperado + "\nobtido   " + obtido);
+            }
+            registros += obtido.size();
+        }
+        return registros;
+    }
+
+    private static int verificarFiltro(Random aleatorio, Path arquivo, long semente) throws IOException {
+        int[] limites = {Integer.MIN_VALUE, -1, 0, 1, 5, 7, 8, 9, 63, 64, 100, 126, 127, 128, 200, Integer.MAX_VALUE};
+        int filtros = 0;
+        for (int t = 0; t < TABELAS; t++) {
+            StringBuilder csv = new StringBuilder(CABECALHO).append('\n');
+            int linhas = aleatorio.nextInt(100);
+            boolean baixas = aleatorio.nextBoolean();
+            for (int i = 0; i < linhas; i++) {
+                int severidade = baixas ? aleatorio.nextInt(11) : aleatorio.nextInt(LogReader.SEVERIDADE_MAXIMA + 1);
+                csv.append(i).append(",u,s,FILE_ACCESS,/r,").append(severidade).append(",0\n");
+            }
+            Files.writeString(arquivo, csv);
+            LogTable tabela = LogTable.carregar(arquivo);
+            int[] todas = new int[tabela.linhas()];
+            Arrays.setAll(todas, i -> i);
+            for (int minimo : limites) {
+                for (int maximo : limites) {
+                    int[] esperado = Arrays.stream(todas)
+                            .filter(i -> tabela.severidade(i) >= minimo && tabela.severidade(i) <= maximo)
+                            .toArray();
+                    LogFilter.Compilado filtro = LogFilter.severidadeEntre(minimo, maximo).compilar(tabela);
+                    if (!Arrays.equals(esperado, filtro.linhas()) || !Arrays.equals(esperado, filtro.linhas(todas))) {
+                        throw new AssertionError("semente " + semente + ", tabela " + t + ", severidade entre "
+                                + minimo + " e " + maximo + ": esperado " + Arrays.toString(esperado)
+                                + ", obtido " + Arrays.toString(filtro.linhas()));
+                    }
+                    filtros++;
+                }
+            }
+        }
+        return filtros;
+    }
+
+    private static final String MALFORMADA = "malformada";
+
+    private static String gerarCsv(Random aleatorio) {
+        StringBuilder csv = new StringBuilder();
+        if (aleatorio.nextBoolean()) {
+            csv.append(CABECALHO).append(aleatorio.nextBoolean() ? "\n" : "\r\n");
+        }
+        int linhas = aleatorio.nextInt(40);
+        for (int i = 0; i < linhas; i++) {
+            if (aleatorio.nextInt(10) == 0) {
+                csv.append(aleatorio.nextBoolean() ? "\n" : "\r\n");
+                continue;
+            }
+            csv.append(aleatorio.nextInt(100000)).append(',');
+            for (int campo = 0; campo < 4; campo++) {
+                int comprimento = aleatorio.nextInt(21);
+                for (int k = 0; k < comprimento; k++) {
+                    csv.append((char) ('a' + aleatorio.nextInt(26)));
+                }
+                csv.append(',');
+            }
+            if (aleatorio.nextInt(100) == 0) {
+                csv.setLength(csv.length() - 1);
+            }
+            csv.append(aleatorio.nextInt(100) == 0 ? 128 + aleatorio.nextInt(200) : aleatorio.nextInt(128)).append(',');
+            if (aleatorio.nextInt(5) > 0) {
+                csv.append(aleatorio.nextInt(1000000));
+            }
+            switch (aleatorio.nextInt(40)) {
+                case 0:
+                    csv.append(" \t");
+                    break;
+                case 1:
+                    csv.append(" x");
+                    break;
+                default:
+                    break;
+            }
+            if (i < linhas - 1 || aleatorio.nextBoolean()) {
+                csv.append(aleatorio.nextBoolean() ? "\n" : "\r\n");
+            }
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Separação de referência, seguindo o formato documentado em
+     * {@link LogReader}; termina com {@link #MALFORMADA} na primeira linha
+     * rejeitada.
+     */
+    private static List<String> separar(String csv) {
+        List<String> registros = new ArrayList<>();
+        String[] linhas = csv.split("\n", -1);
+        for (int i = 0; i < linhas.length; i++) {
+            String linha = linhas[i];
+            if (linha.endsWith("\r")) {
+                linha = linha.substring(0, linha.length() - 1);
+            }
+            if (linha.isEmpty() || (i == 0 && !Character.isDigit(linha.charAt(0)))) {
+                continue;
+            }
+            String[] campos = linha.split(",", -1);
+            String bytes = campos.length == 7 ? campos[6].replaceAll("[ \t\r]+$", "") : "";
+            if (campos.length != 7 || !campos[0].matches("[0-9]+") || !campos[5].matches("[0-9]+")
+                    || Long.parseLong(campos[5]) > LogReader.SEVERIDADE_MAXIMA || !bytes.matches("[0-9]*")) {
+                registros.add(MALFORMADA);
+                return registros;
+            }
+            registros.add(Long.parseLong(campos[0]) + "|" + campos[1] + "|" + campos[2] + "|" + campos[3] + "|"
+                    + campos[4] + "|" + Integer.parseInt(campos[5]) + "|" + (bytes.isEmpty() ? 0 : Long.parseLong(bytes)));
+        }
+        return registros;
+    }
+}
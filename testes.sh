@@ -0,0 +1,38 @@
+#!/bin/bash
+
+# Compila src/ e test/ e executa as verificações de regressão de test/
+# (classes Verificacao*, cada uma com seu main). Argumentos são repassados
+# às verificações, por exemplo uma semente diferente para os dados aleatórios,
+# e JAVA_OPTS à JVM, por exemplo JAVA_OPTS=-Daed.forense.swar=false.
+
+SRC_DIR="src"
+TEST_DIR="test"
+BUILD_DIR="$(mktemp -d)"
+trap 'rm -rf "$BUILD_DIR"' EXIT
+
+if ! command -v javac &> /dev/null; then
+    echo "❌ javac não encontrado. Instale o JDK!"
+    exit 1
+fi
+
+javac -encoding UTF-8 -d "$BUILD_DIR" $(find "$SRC_DIR" "$TEST_DIR" -name "*.java")
+if [ $? -ne 0 ]; then
+    echo "❌ Falha na compilação!"
+    exit 1
+fi
+
+falhas=0
+for arquivo in $(find "$TEST_DIR" -name "Verificacao*.java" | sort); do
+    classe=$(echo "$arquivo" | sed "s|$TEST_DIR/||" | sed 's|/|.|g' | sed 's|.java||')
+    echo "🧪 $classe"
+    if ! java $JAVA_OPTS -cp "$BUILD_DIR" "$classe" "$@"; then
+        echo "❌ $classe falhou"
+        falhas=$((falhas + 1))
+    fi
+done
+
+if [ $falhas -ne 0 ]; then
+    echo "❌ $falhas verificação(ões) falharam"
+    exit 1
+fi
+echo "✅ Todas as verificações passaram!"